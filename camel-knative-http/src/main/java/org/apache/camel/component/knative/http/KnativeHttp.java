@@ -27,6 +27,18 @@ public final class KnativeHttp {
     public static final String DEFAULT_PATH = "/";
     public static final Pattern ENDPOINT_PATTERN = Pattern.compile("([0-9a-zA-Z][\\w\\.-]+):(\\d+)\\/?(.*)");
 
+    /**
+     * The header carrying the time in millis the caller is still willing to wait for the
+     * response, relative so it does not depend on the clocks of the hosts being in sync.
+     */
+    public static final String REQUEST_TIMEOUT_HEADER = "Knative-Request-Timeout";
+
+    /**
+     * The exchange property holding the time, in millis since the epoch, after which the
+     * caller of the exchange does not wait for the response anymore.
+     */
+    public static final String DEADLINE_PROPERTY = "CamelKnativeHttpDeadline";
+
     private KnativeHttp() {
     }
 
@@ -65,7 +77,105 @@ public final class KnativeHttp {
         }
     }
 
+    /**
+     * Identifies a client, and its connection pools, shared by the producers targeting
+     * the same host and port with the same TLS and pool settings.
+     */
+    public static final class ClientKey {
+        private final String host;
+        private final int port;
+        private final Object tls;
+        private final int maxPoolSize;
+        private final int maxWaitQueueSize;
+        private final int keepAliveTimeout;
+        private final boolean pipelining;
+        private final int connectTimeout;
+        private final int idleTimeout;
+
+        public ClientKey(String host, int port, Object tls, int maxPoolSize, int maxWaitQueueSize, int keepAliveTimeout, boolean pipelining, int connectTimeout, int idleTimeout) {
+            this.host = host;
+            this.port = port;
+            this.tls = tls;
+            this.maxPoolSize = maxPoolSize;
+            this.maxWaitQueueSize = maxWaitQueueSize;
+            this.keepAliveTimeout = keepAliveTimeout;
+            this.pipelining = pipelining;
+            this.connectTimeout = connectTimeout;
+            this.idleTimeout = idleTimeout;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public Object getTls() {
+            return tls;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public int getMaxWaitQueueSize() {
+            return maxWaitQueueSize;
+        }
+
+        public int getKeepAliveTimeout() {
+            return keepAliveTimeout;
+        }
+
+        public boolean isPipelining() {
+            return pipelining;
+        }
+
+        public int getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public int getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ClientKey key = (ClientKey) o;
+            return getPort() == key.getPort()
+                && getMaxPoolSize() == key.getMaxPoolSize()
+                && getMaxWaitQueueSize() == key.getMaxWaitQueueSize()
+                && getKeepAliveTimeout() == key.getKeepAliveTimeout()
+                && isPipelining() == key.isPipelining()
+                && getConnectTimeout() == key.getConnectTimeout()
+                && getIdleTimeout() == key.getIdleTimeout()
+                && getHost().equals(key.getHost())
+                && Objects.equals(getTls(), key.getTls());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getHost(), getPort(), getTls(), getMaxPoolSize(), getMaxWaitQueueSize(), getKeepAliveTimeout(), isPipelining(), getConnectTimeout(), getIdleTimeout());
+        }
+    }
+
     public interface PredicatedHandler extends Handler<HttpServerRequest> {
         boolean canHandle(HttpServerRequest event);
+
+        /**
+         * The exact request path served by this handler, used by the dispatcher
+         * to index handlers. A null value means the handler has to be evaluated
+         * for every request.
+         */
+        default String getPath() {
+            return null;
+        }
     }
 }
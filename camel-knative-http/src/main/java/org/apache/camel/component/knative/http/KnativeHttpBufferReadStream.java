@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+
+/**
+ * A {@link ReadStream} emitting a single {@link Buffer}, used to send the body of a
+ * hedged request so the request can be cancelled: the stream keeps track of the
+ * {@link HttpClientRequest} it is piped to and resets it once cancelled.
+ *
+ * The request has to carry the content length of the buffer, otherwise it is sent
+ * using chunked transfer encoding.
+ */
+final class KnativeHttpBufferReadStream implements ReadStream<Buffer> {
+    private final Buffer payload;
+
+    private Handler<Buffer> handler;
+    private Handler<Void> endHandler;
+    private long demand;
+    private boolean ended;
+    private WriteStream<Buffer> destination;
+    private boolean cancelled;
+
+    KnativeHttpBufferReadStream(Buffer payload) {
+        this.payload = payload;
+        this.demand = Long.MAX_VALUE;
+    }
+
+    @Override
+    public KnativeHttpBufferReadStream exceptionHandler(Handler<Throwable> handler) {
+        // a buffer never fails
+        return this;
+    }
+
+    @Override
+    public KnativeHttpBufferReadStream handler(Handler<Buffer> handler) {
+        synchronized (this) {
+            this.handler = handler;
+        }
+
+        emit();
+
+        return this;
+    }
+
+    @Override
+    public synchronized KnativeHttpBufferReadStream pause() {
+        this.demand = 0;
+        return this;
+    }
+
+    @Override
+    public KnativeHttpBufferReadStream resume() {
+        return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public KnativeHttpBufferReadStream fetch(long amount) {
+        synchronized (this) {
+            demand += amount;
+            if (demand < 0L) {
+                demand = Long.MAX_VALUE;
+            }
+        }
+
+        emit();
+
+        return this;
+    }
+
+    @Override
+    public synchronized KnativeHttpBufferReadStream endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    @Override
+    public void pipeTo(WriteStream<Buffer> destination, Handler<AsyncResult<Void>> handler) {
+        final boolean reset;
+
+        synchronized (this) {
+            this.destination = destination;
+            reset = cancelled;
+        }
+
+        ReadStream.super.pipeTo(destination, handler);
+
+        if (reset) {
+            cancel();
+        }
+    }
+
+    /**
+     * Cancels the request the stream is piped to, the response handler of the request
+     * is then notified of the failure, a request not sent yet is cancelled once sent.
+     */
+    public void cancel() {
+        final WriteStream<Buffer> request;
+
+        synchronized (this) {
+            cancelled = true;
+            request = destination;
+        }
+
+        if (request instanceof HttpClientRequest) {
+            ((HttpClientRequest) request).reset();
+        }
+    }
+
+    private void emit() {
+        final Handler<Buffer> onBuffer;
+        final Handler<Void> onEnd;
+
+        synchronized (this) {
+            if (ended || demand == 0 || handler == null) {
+                return;
+            }
+
+            ended = true;
+            onBuffer = handler;
+            onEnd = endHandler;
+        }
+
+        onBuffer.handle(payload);
+
+        if (onEnd != null) {
+            onEnd.handle(null);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A circuit breaker shared by the producers sending requests to the same target.
+ *
+ * The outcome of the last calls is recorded in a ring buffer: when the rate of
+ * failed or slow calls exceeds the configured thresholds the breaker opens and
+ * requests fail fast. Once the open duration has elapsed a few probe requests are
+ * let through, the breaker closes again if they succeed and opens otherwise. If the
+ * probes do not all complete within the open duration the breaker opens again, so a
+ * probe that never completes does not keep it half open forever.
+ *
+ * Each state transition starts a new generation: a permitted call is tagged with
+ * the generation it was admitted under and its outcome is ignored once the breaker
+ * has moved on, so calls started before the breaker opened are not taken as probes.
+ *
+ * The state is only updated with atomic operations so the counters may be
+ * slightly off under contention, which does not matter for rates.
+ */
+public final class KnativeHttpCircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final int STATE_BITS = 2;
+    private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+    private static final int SLOW = 4;
+
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallDuration;
+    private final int minimumCalls;
+    private final long openDuration;
+    private final int halfOpenCalls;
+
+    // the generation shifted left by STATE_BITS, or-ed with the ordinal of the state
+    private final AtomicLong state;
+    private final AtomicIntegerArray window;
+    private final AtomicLong index;
+    private final AtomicInteger calls;
+    private final AtomicInteger failures;
+    private final AtomicInteger slowCalls;
+    private final AtomicInteger probes;
+    private final AtomicInteger probeCalls;
+    private final AtomicInteger probeFailures;
+    private final LongAdder rejected;
+    private volatile long openedAt;
+    private volatile long halfOpenedAt;
+
+    // the number of producers using the breaker, guarded by the component
+    int references;
+
+    /**
+     * @param failureRateThreshold the percentage of failed calls above which the breaker opens
+     * @param slowCallRateThreshold the percentage of slow calls above which the breaker opens
+     * @param slowCallDuration the duration in millis above which a call is slow
+     * @param windowSize the number of calls the rates are computed on
+     * @param minimumCalls the min number of calls recorded before the rates are evaluated
+     * @param openDuration the time in millis the breaker stays open
+     * @param halfOpenCalls the number of probe calls let through when half open
+     */
+    public KnativeHttpCircuitBreaker(
+            double failureRateThreshold,
+            double slowCallRateThreshold,
+            long slowCallDuration,
+            int windowSize,
+            int minimumCalls,
+            long openDuration,
+            int halfOpenCalls) {
+
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("The circuit breaker window size must be at least 1, got: " + windowSize);
+        }
+        if (minimumCalls < 1 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException(
+                "The circuit breaker minimum calls must be between 1 and the window size (" + windowSize + "), got: " + minimumCalls);
+        }
+        if (failureRateThreshold <= 0 || failureRateThreshold > 100) {
+            throw new IllegalArgumentException("The circuit breaker failure rate threshold must be between 0 and 100, got: " + failureRateThreshold);
+        }
+        if (slowCallRateThreshold <= 0 || slowCallRateThreshold > 100) {
+            throw new IllegalArgumentException("The circuit breaker slow call rate threshold must be between 0 and 100, got: " + slowCallRateThreshold);
+        }
+        if (halfOpenCalls < 1) {
+            throw new IllegalArgumentException("The circuit breaker half open calls must be at least 1, got: " + halfOpenCalls);
+        }
+
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallDuration = TimeUnit.MILLISECONDS.toNanos(slowCallDuration);
+        this.minimumCalls = minimumCalls;
+        this.openDuration = TimeUnit.MILLISECONDS.toNanos(openDuration);
+        this.halfOpenCalls = halfOpenCalls;
+
+        this.state = new AtomicLong(State.CLOSED.ordinal());
+        this.window = new AtomicIntegerArray(windowSize);
+        this.index = new AtomicLong();
+        this.calls = new AtomicInteger();
+        this.failures = new AtomicInteger();
+        this.slowCalls = new AtomicInteger();
+        this.probes = new AtomicInteger();
+        this.probeCalls = new AtomicInteger();
+        this.probeFailures = new AtomicInteger();
+        this.rejected = new LongAdder();
+    }
+
+    public State getState() {
+        return stateOf(state.get());
+    }
+
+    public double getFailureRate() {
+        final int count = calls.get();
+        return count > 0 ? failures.get() * 100.0 / count : 0;
+    }
+
+    public double getSlowCallRate() {
+        final int count = calls.get();
+        return count > 0 ? slowCalls.get() * 100.0 / count : 0;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the permit to pass to {@link #onResult(long, long, boolean)} if a call is
+     *         permitted, -1 if it has to fail fast
+     */
+    public long tryAcquire() {
+        for (;;) {
+            final long current = state.get();
+            final State currentState = stateOf(current);
+
+            if (currentState == State.CLOSED) {
+                return current;
+            }
+            if (currentState == State.OPEN) {
+                if (System.nanoTime() - openedAt < openDuration) {
+                    rejected.increment();
+                    return -1;
+                }
+
+                // set before the state so the probes are not timed out right away
+                halfOpenedAt = System.nanoTime();
+
+                if (state.compareAndSet(current, next(current, State.HALF_OPEN))) {
+                    probeCalls.set(0);
+                    probeFailures.set(0);
+                    probes.set(halfOpenCalls);
+                }
+
+                continue;
+            }
+
+            // half open, let a limited number of probes through
+            final int available = probes.get();
+            if (available <= 0) {
+                if (System.nanoTime() - halfOpenedAt >= openDuration) {
+                    // the probes did not complete in time
+                    open(current);
+                    continue;
+                }
+
+                rejected.increment();
+                return -1;
+            }
+            if (probes.compareAndSet(available, available - 1)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Records the outcome of a permitted call.
+     *
+     * @param permit the value returned by {@link #tryAcquire()} when the call was permitted
+     */
+    public void onResult(long permit, long durationNanos, boolean failed) {
+        final long current = state.get();
+
+        if (permit != current) {
+            // the breaker changed state since the call was permitted
+            return;
+        }
+
+        final int outcome = (failed ? FAILURE : SUCCESS) | (durationNanos > slowCallDuration ? SLOW : 0);
+
+        if (stateOf(current) == State.HALF_OPEN) {
+            if (outcome != SUCCESS) {
+                probeFailures.incrementAndGet();
+            }
+            if (probeCalls.incrementAndGet() == halfOpenCalls) {
+                // all the probes are done, a single failed or slow probe opens the breaker again
+                if (probeFailures.get() > 0) {
+                    open(current);
+                } else {
+                    reset();
+                    state.compareAndSet(current, next(current, State.CLOSED));
+                }
+            }
+
+            return;
+        }
+
+        final int slot = (int) (index.getAndIncrement() % window.length());
+        final int previous = window.getAndSet(slot, outcome);
+
+        if (previous == 0) {
+            calls.incrementAndGet();
+        }
+        failures.addAndGet(bit(outcome, FAILURE) - bit(previous, FAILURE));
+        slowCalls.addAndGet(bit(outcome, SLOW) - bit(previous, SLOW));
+
+        if (calls.get() >= minimumCalls && (getFailureRate() >= failureRateThreshold || getSlowCallRate() >= slowCallRateThreshold)) {
+            open(current);
+        }
+    }
+
+    private void open(long from) {
+        // set before the state so a concurrent caller never sees an open breaker with a stale timestamp
+        openedAt = System.nanoTime();
+        state.compareAndSet(from, next(from, State.OPEN));
+    }
+
+    private static State stateOf(long value) {
+        return State.values()[(int) (value & STATE_MASK)];
+    }
+
+    private static long next(long from, State state) {
+        return (((from >>> STATE_BITS) + 1) << STATE_BITS) | state.ordinal();
+    }
+
+    private void reset() {
+        for (int i = 0; i < window.length(); i++) {
+            window.set(i, 0);
+        }
+
+        calls.set(0);
+        failures.set(0);
+        slowCalls.set(0);
+    }
+
+    private static int bit(int outcome, int flag) {
+        return (outcome & flag) != 0 ? 1 : 0;
+    }
+}
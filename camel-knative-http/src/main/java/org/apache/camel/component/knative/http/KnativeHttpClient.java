@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.apache.camel.util.ReferenceCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link WebClient} shared by the producers with the same {@link KnativeHttp.ClientKey}.
+ *
+ * The client keeps track of its connection pool: the requests waiting for a
+ * connection, the requests in flight, the open connections and the time spent
+ * waiting for a connection. The pool is measured through the Vert.x metrics SPI
+ * so the gauges are only available when the Vert.x instance has been created
+ * with the {@link KnativeHttpMetricsFactory}.
+ */
+public final class KnativeHttpClient {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KnativeHttpClient.class);
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private final Vertx vertx;
+    private final KnativeHttp.ClientKey key;
+    private final WebClientOptions options;
+    private final ReferenceCount refCnt;
+
+    private volatile WebClient client;
+    private volatile KnativeHttpClientMetrics metrics;
+
+    public KnativeHttpClient(Vertx vertx, KnativeHttp.ClientKey key, WebClientOptions options) {
+        this.vertx = vertx;
+        this.key = key;
+        this.options = options;
+        this.refCnt = ReferenceCount.on(this::start, this::stop);
+        this.metrics = new KnativeHttpClientMetrics();
+    }
+
+    public KnativeHttp.ClientKey getKey() {
+        return key;
+    }
+
+    public WebClient getWebClient() {
+        return client;
+    }
+
+    public void retain() {
+        refCnt.retain();
+    }
+
+    public void release() {
+        refCnt.release();
+    }
+
+    /**
+     * Whether the client has no more references.
+     */
+    public boolean isReleased() {
+        return refCnt.get() <= 0;
+    }
+
+    public int getMaxPoolSize() {
+        return options.getMaxPoolSize();
+    }
+
+    /**
+     * The number of requests waiting for a connection.
+     */
+    public int getQueuedRequests() {
+        return metrics.getQueuedRequests();
+    }
+
+    /**
+     * The number of requests that have been assigned a connection and are waiting for
+     * a response.
+     */
+    public int getActiveRequests() {
+        return metrics.getActiveRequests();
+    }
+
+    public int getOpenConnections() {
+        return metrics.getOpenConnections();
+    }
+
+    /**
+     * The number of open connections not serving any request.
+     */
+    public int getIdleConnections() {
+        return metrics.getIdleConnections();
+    }
+
+    /**
+     * The average time, in milliseconds, spent by a request waiting for a connection.
+     */
+    public double getAverageWaitTime() {
+        return metrics.getAverageWaitTime();
+    }
+
+    private void start() {
+        LOGGER.debug("Creating client for {}:{}", key.getHost(), key.getPort());
+
+        final String metricsName = "knative-http-client-" + COUNTER.incrementAndGet();
+        final KnativeHttpClientMetrics clientMetrics = new KnativeHttpClientMetrics();
+
+        KnativeHttpMetricsFactory.register(metricsName, clientMetrics);
+        try {
+            this.client = WebClient.create(vertx, new WebClientOptions(options).setMetricsName(metricsName));
+        } finally {
+            KnativeHttpMetricsFactory.unregister(metricsName);
+        }
+
+        if (!clientMetrics.isBound()) {
+            LOGGER.warn("The Vert.x instance does not use the {}, the pool gauges of the client for {}:{} are not available",
+                KnativeHttpMetricsFactory.class.getSimpleName(), key.getHost(), key.getPort());
+        }
+
+        this.metrics = clientMetrics;
+    }
+
+    private void stop() {
+        LOGGER.debug("Closing client for {}:{}", key.getHost(), key.getPort());
+
+        if (this.client != null) {
+            this.client.close();
+            this.client = null;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.spi.metrics.HttpClientMetrics;
+
+/**
+ * The pool metrics of a {@link KnativeHttpClient}, notified by Vert.x through the
+ * metrics SPI once the client is created on a Vert.x instance using the
+ * {@link KnativeHttpMetricsFactory}.
+ *
+ * The hooks are invoked on the event loop of the connections while the gauges are
+ * read from any thread, so the state is only made of concurrent counters.
+ */
+final class KnativeHttpClientMetrics
+        implements HttpClientMetrics<KnativeHttpClientMetrics.Request, Void, KnativeHttpClientMetrics.Connection, Void, Long> {
+
+    private final AtomicInteger queued;
+    private final AtomicInteger active;
+    private final Set<Connection> connections;
+    private final LongAdder acquired;
+    private final LongAdder waitTime;
+    private volatile boolean bound;
+
+    KnativeHttpClientMetrics() {
+        this.queued = new AtomicInteger();
+        this.active = new AtomicInteger();
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.acquired = new LongAdder();
+        this.waitTime = new LongAdder();
+    }
+
+    /**
+     * Whether Vert.x has picked up these metrics when creating the client.
+     */
+    boolean isBound() {
+        return bound;
+    }
+
+    void bind() {
+        this.bound = true;
+    }
+
+    /**
+     * The number of requests waiting for a connection.
+     */
+    int getQueuedRequests() {
+        return queued.get();
+    }
+
+    /**
+     * The number of requests that have been assigned a connection and are waiting for
+     * a response.
+     */
+    int getActiveRequests() {
+        return active.get();
+    }
+
+    int getOpenConnections() {
+        return connections.size();
+    }
+
+    /**
+     * The number of open connections not serving any request.
+     */
+    int getIdleConnections() {
+        int answer = 0;
+        for (Connection connection : connections) {
+            if (connection.requests.get() == 0) {
+                answer++;
+            }
+        }
+
+        return answer;
+    }
+
+    /**
+     * The average time, in milliseconds, spent by a request waiting for a connection.
+     */
+    double getAverageWaitTime() {
+        final long count = acquired.sum();
+
+        return count > 0 ? (double) TimeUnit.NANOSECONDS.toMicros(waitTime.sum() / count) / 1000 : 0;
+    }
+
+    @Override
+    public Long enqueueRequest(Void endpoint) {
+        queued.incrementAndGet();
+
+        return System.nanoTime();
+    }
+
+    @Override
+    public void dequeueRequest(Void endpoint, Long start) {
+        queued.decrementAndGet();
+        acquired.increment();
+        waitTime.add(System.nanoTime() - start);
+    }
+
+    @Override
+    public Connection connected(SocketAddress remoteAddress, String remoteName) {
+        return new Connection();
+    }
+
+    @Override
+    public void endpointConnected(Void endpoint, Connection connection) {
+        connections.add(connection);
+    }
+
+    @Override
+    public void endpointDisconnected(Void endpoint, Connection connection) {
+        connections.remove(connection);
+    }
+
+    @Override
+    public Request requestBegin(Void endpoint, Connection connection, SocketAddress localAddress, SocketAddress remoteAddress, HttpClientRequest request) {
+        active.incrementAndGet();
+
+        if (connection != null) {
+            connection.requests.incrementAndGet();
+        }
+
+        return new Request(connection);
+    }
+
+    @Override
+    public void requestReset(Request request) {
+        onEnd(request);
+    }
+
+    @Override
+    public void responseEnd(Request request, HttpClientResponse response) {
+        onEnd(request);
+    }
+
+    @Override
+    public void close() {
+        connections.clear();
+    }
+
+    private void onEnd(Request request) {
+        // a request may be reset once its response has ended
+        if (request != null && request.done.compareAndSet(false, true)) {
+            active.decrementAndGet();
+
+            if (request.connection != null) {
+                request.connection.requests.decrementAndGet();
+            }
+        }
+    }
+
+    static final class Connection {
+        final AtomicInteger requests = new AtomicInteger();
+    }
+
+    static final class Request {
+        final Connection connection;
+        final AtomicBoolean done = new AtomicBoolean();
+
+        Request(Connection connection) {
+            this.connection = connection;
+        }
+    }
+}
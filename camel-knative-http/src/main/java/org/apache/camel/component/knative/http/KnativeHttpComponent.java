@@ -16,6 +16,8 @@
  */
 package org.apache.camel.component.knative.http;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,24 +28,36 @@ import java.util.regex.Matcher;
 
 import static java.lang.Integer.parseInt;
 
+import io.netty.util.concurrent.EventExecutor;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
+import io.vertx.core.dns.AddressResolverOptions;
+import io.vertx.core.http.Http2Settings;
 import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.TCPSSLOptions;
 import io.vertx.ext.web.client.WebClientOptions;
 import org.apache.camel.Endpoint;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.spi.Metadata;
+import org.apache.camel.spi.ThreadPoolProfile;
 import org.apache.camel.spi.annotations.Component;
 import org.apache.camel.support.DefaultComponent;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.camel.util.PropertiesHelper;
+import org.apache.camel.util.concurrent.ThreadPoolRejectedPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Component("knative-http")
+@ManagedResource(description = "Managed KnativeHttpComponent")
 public class KnativeHttpComponent extends DefaultComponent {
     private static final Logger LOGGER = LoggerFactory.getLogger(KnativeHttpComponent.class);
 
     private final Map<KnativeHttp.ServerKey, KnativeHttpConsumerDispatcher> registry;
+    private final Map<KnativeHttp.ClientKey, KnativeHttpClient> clients;
+    private final Map<String, KnativeHttpCircuitBreaker> circuitBreakers;
 
     @Metadata(label = "advanced")
     private Vertx vertx;
@@ -53,12 +67,80 @@ public class KnativeHttpComponent extends DefaultComponent {
     private HttpServerOptions vertxHttpServerOptions;
     @Metadata(label = "advanced")
     private WebClientOptions vertxHttpClientOptions;
+    @Metadata(label = "consumer,advanced")
+    private int serverInstances;
+    @Metadata(label = "consumer,advanced")
+    private ExecutorService consumerExecutorService;
+    @Metadata(label = "consumer")
+    private int consumerWorkerPoolSize;
+    @Metadata(label = "consumer", defaultValue = "1000")
+    private int consumerWorkerQueueSize = 1000;
+    @Metadata(label = "consumer", defaultValue = "503")
+    private int consumerRejectionStatusCode = 503;
+    @Metadata(label = "consumer", defaultValue = "1")
+    private int consumerRetryAfter = 1;
+    @Metadata(label = "advanced")
+    private Boolean preferNativeTransport;
+    @Metadata(label = "advanced")
+    private Boolean tcpNoDelay;
+    @Metadata(label = "advanced")
+    private Boolean tcpQuickAck;
+    @Metadata(label = "advanced")
+    private Boolean tcpFastOpen;
+    @Metadata(label = "advanced")
+    private Boolean reusePort;
+    @Metadata(label = "advanced")
+    private Integer receiveBufferSize;
+    @Metadata(label = "advanced")
+    private Integer sendBufferSize;
+    @Metadata(label = "producer")
+    private Integer maxPoolSize;
+    @Metadata(label = "producer")
+    private Integer maxWaitQueueSize;
+    @Metadata(label = "producer")
+    private Integer keepAliveTimeout;
+    @Metadata(label = "producer")
+    private Boolean pipelining;
+    @Metadata(label = "producer")
+    private Integer connectTimeout;
+    @Metadata(label = "producer")
+    private Integer idleTimeout;
+    @Metadata(label = "advanced")
+    private boolean h2c;
+    @Metadata(label = "producer,advanced")
+    private boolean h2cPriorKnowledge;
+    @Metadata(label = "advanced")
+    private Integer http2MaxConcurrentStreams;
+    @Metadata(label = "advanced")
+    private Integer http2InitialWindowSize;
+    @Metadata(label = "advanced")
+    private Integer http2ConnectionWindowSize;
+    @Metadata(label = "advanced")
+    private AddressResolverOptions addressResolverOptions;
+    @Metadata(label = "advanced")
+    private Integer dnsCacheMinTimeToLive;
+    @Metadata(label = "advanced")
+    private Integer dnsCacheMaxTimeToLive;
+    @Metadata(label = "advanced")
+    private Integer dnsCacheNegativeTimeToLive;
+    @Metadata(label = "advanced")
+    private Integer dnsNdots;
+    @Metadata(label = "advanced")
+    private String dnsSearchDomains;
+    @Metadata(label = "advanced")
+    private Long dnsQueryTimeout;
 
+    private HttpServerOptions serverOptions;
+    private WebClientOptions clientOptions;
     private boolean localVertx;
+    private boolean localConsumerExecutorService;
     private ExecutorService executor;
+    private KnativeHttpResolver resolver;
 
     public KnativeHttpComponent() {
         this.registry = new ConcurrentHashMap<>();
+        this.clients = new HashMap<>();
+        this.circuitBreakers = new ConcurrentHashMap<>();
         this.localVertx = false;
     }
 
@@ -68,12 +150,29 @@ public class KnativeHttpComponent extends DefaultComponent {
 
         this.executor = getCamelContext().getExecutorServiceManager().newSingleThreadExecutor(this, "knative-http-component");
 
-        if (this.vertx != null)  {
-            LOGGER.info("Using Vert.x instance configured on component: {}", this.vertx);
-            return;
+        if (this.consumerExecutorService == null && this.consumerWorkerPoolSize > 0) {
+            ThreadPoolProfile profile = new ThreadPoolProfile("knative-http-consumer");
+            profile.setPoolSize(this.consumerWorkerPoolSize);
+            profile.setMaxPoolSize(this.consumerWorkerPoolSize);
+            profile.setMaxQueueSize(this.consumerWorkerQueueSize);
+            profile.setRejectedPolicy(ThreadPoolRejectedPolicy.Abort);
+
+            this.consumerExecutorService = getCamelContext().getExecutorServiceManager().newThreadPool(this, "knative-http-consumer", profile);
+            this.localConsumerExecutorService = true;
         }
 
-        if (this.vertx == null) {
+        this.serverOptions = configureTcpOptions(
+            this.vertxHttpServerOptions != null ? new HttpServerOptions(this.vertxHttpServerOptions) : new HttpServerOptions());
+        this.clientOptions = configureTcpOptions(
+            this.vertxHttpClientOptions != null ? new WebClientOptions(this.vertxHttpClientOptions) : new WebClientOptions());
+
+        if (this.h2c) {
+            configureHttp2(this.serverOptions, this.clientOptions);
+        }
+
+        if (this.vertx != null)  {
+            LOGGER.info("Using Vert.x instance configured on component: {}", this.vertx);
+        } else {
             Set<Vertx> instances = getCamelContext().getRegistry().findByType(Vertx.class);
             if (instances.size() == 1) {
                 this.vertx = instances.iterator().next();
@@ -93,11 +192,141 @@ public class KnativeHttpComponent extends DefaultComponent {
         if (this.vertx == null) {
             LOGGER.info("Creating new Vert.x instance");
 
-            VertxOptions options = ObjectHelper.supplyIfEmpty(this.vertxOptions, VertxOptions::new);
+            VertxOptions options = this.vertxOptions != null ? new VertxOptions(this.vertxOptions) : new VertxOptions();
+            if (this.preferNativeTransport != null) {
+                options.setPreferNativeTransport(this.preferNativeTransport);
+            }
+
+            options.setAddressResolverOptions(configureAddressResolver(
+                this.addressResolverOptions != null ? this.addressResolverOptions : options.getAddressResolverOptions()));
+
+            // the pool gauges of the producers are provided through the metrics SPI
+            if (options.getMetricsOptions() == null || !options.getMetricsOptions().isEnabled()) {
+                options.setMetricsOptions(KnativeHttpMetricsFactory.newMetricsOptions());
+            }
 
             this.vertx = Vertx.vertx(options);
             this.localVertx = true;
+        } else if (hasAddressResolverOptions()) {
+            LOGGER.warn("The address resolver options are ignored as the Vert.x instance is not created by the component");
+        }
+
+        if (this.vertx != null) {
+            this.resolver = new KnativeHttpResolver(this.vertx);
+
+            logTransport();
+        }
+    }
+
+    private boolean hasAddressResolverOptions() {
+        return this.addressResolverOptions != null
+            || this.dnsCacheMinTimeToLive != null
+            || this.dnsCacheMaxTimeToLive != null
+            || this.dnsCacheNegativeTimeToLive != null
+            || this.dnsNdots != null
+            || this.dnsSearchDomains != null
+            || this.dnsQueryTimeout != null;
+    }
+
+    private AddressResolverOptions configureAddressResolver(AddressResolverOptions resolverOptions) {
+        final AddressResolverOptions options = resolverOptions != null ? new AddressResolverOptions(resolverOptions) : new AddressResolverOptions();
+        if (this.dnsCacheMinTimeToLive != null) {
+            options.setCacheMinTimeToLive(this.dnsCacheMinTimeToLive);
+        }
+        if (this.dnsCacheMaxTimeToLive != null) {
+            options.setCacheMaxTimeToLive(this.dnsCacheMaxTimeToLive);
+        }
+        if (this.dnsCacheNegativeTimeToLive != null) {
+            options.setCacheNegativeTimeToLive(this.dnsCacheNegativeTimeToLive);
+        }
+        if (this.dnsNdots != null) {
+            options.setNdots(this.dnsNdots);
+        }
+        if (this.dnsSearchDomains != null) {
+            options.setSearchDomains(Arrays.asList(this.dnsSearchDomains.split("\\s*,\\s*")));
+        }
+        if (this.dnsQueryTimeout != null) {
+            options.setQueryTimeout(this.dnsQueryTimeout);
+        }
+
+        return options;
+    }
+
+    private void logTransport() {
+        if (this.vertx.isNativeTransportEnabled()) {
+            LOGGER.info("Vert.x is using the native transport");
+            return;
+        }
+
+        if (Boolean.TRUE.equals(this.preferNativeTransport)) {
+            LOGGER.warn("Vert.x native transport requested but not available, falling back to NIO");
+        } else {
+            LOGGER.info("Vert.x is using the NIO transport");
+        }
+
+        if (Boolean.TRUE.equals(this.tcpQuickAck) || Boolean.TRUE.equals(this.tcpFastOpen)) {
+            LOGGER.warn("TCP_QUICKACK and TCP_FASTOPEN require the native transport and are ignored");
+        }
+    }
+
+    private void configureHttp2(HttpServerOptions serverOptions, WebClientOptions clientOptions) {
+        //
+        // Vert.x servers accept both prior knowledge and upgrade h2c requests
+        // next to HTTP/1.1 ones, only the settings they advertise are tuned.
+        //
+        serverOptions.setInitialSettings(configureHttp2Settings(serverOptions.getInitialSettings()));
+
+        //
+        // A single connection per target multiplexes up to the max concurrent
+        // streams so there is no need for a large HTTP/1.1 pool.
+        //
+        clientOptions.setProtocolVersion(HttpVersion.HTTP_2);
+        clientOptions.setHttp2ClearTextUpgrade(!this.h2cPriorKnowledge);
+        clientOptions.setHttp2MaxPoolSize(1);
+        clientOptions.setInitialSettings(configureHttp2Settings(clientOptions.getInitialSettings()));
+
+        if (this.http2MaxConcurrentStreams != null) {
+            clientOptions.setHttp2MultiplexingLimit(this.http2MaxConcurrentStreams.intValue());
+        }
+        if (this.http2ConnectionWindowSize != null) {
+            serverOptions.setHttp2ConnectionWindowSize(this.http2ConnectionWindowSize);
+            clientOptions.setHttp2ConnectionWindowSize(this.http2ConnectionWindowSize);
+        }
+    }
+
+    private Http2Settings configureHttp2Settings(Http2Settings initialSettings) {
+        final Http2Settings settings = initialSettings != null ? new Http2Settings(initialSettings) : new Http2Settings();
+        if (this.http2MaxConcurrentStreams != null) {
+            settings.setMaxConcurrentStreams(this.http2MaxConcurrentStreams);
+        }
+        if (this.http2InitialWindowSize != null) {
+            settings.setInitialWindowSize(this.http2InitialWindowSize);
         }
+
+        return settings;
+    }
+
+    private <T extends TCPSSLOptions> T configureTcpOptions(T options) {
+        if (this.tcpNoDelay != null) {
+            options.setTcpNoDelay(this.tcpNoDelay);
+        }
+        if (this.tcpQuickAck != null) {
+            options.setTcpQuickAck(this.tcpQuickAck);
+        }
+        if (this.tcpFastOpen != null) {
+            options.setTcpFastOpen(this.tcpFastOpen);
+        }
+        if (this.reusePort != null) {
+            options.setReusePort(this.reusePort);
+        }
+        if (this.receiveBufferSize != null) {
+            options.setReceiveBufferSize(this.receiveBufferSize);
+        }
+        if (this.sendBufferSize != null) {
+            options.setSendBufferSize(this.sendBufferSize);
+        }
+
+        return options;
     }
 
     @Override
@@ -141,6 +370,13 @@ public class KnativeHttpComponent extends DefaultComponent {
             }
         }
 
+        if (this.consumerExecutorService != null && this.localConsumerExecutorService) {
+            getCamelContext().getExecutorServiceManager().shutdownGraceful(this.consumerExecutorService);
+
+            this.consumerExecutorService = null;
+            this.localConsumerExecutorService = false;
+        }
+
         if (this.executor != null) {
             getCamelContext().getExecutorServiceManager().shutdownNow(this.executor);
         }
@@ -185,6 +421,10 @@ public class KnativeHttpComponent extends DefaultComponent {
         return vertx;
     }
 
+    /**
+     * The Vert.x instance to use, the pool gauges of the producers are only available
+     * when it has been created with the {@link KnativeHttpMetricsFactory}.
+     */
     public void setVertx(Vertx vertx) {
         this.vertx = vertx;
     }
@@ -213,7 +453,529 @@ public class KnativeHttpComponent extends DefaultComponent {
         this.vertxHttpClientOptions = vertxHttpClientOptions;
     }
 
+    public Integer getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * The max number of connections the producers open to a target host and port.
+     */
+    public void setMaxPoolSize(Integer maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public Integer getMaxWaitQueueSize() {
+        return maxWaitQueueSize;
+    }
+
+    /**
+     * The max number of requests waiting for a connection to a target host and port,
+     * -1 for an unbounded queue.
+     */
+    public void setMaxWaitQueueSize(Integer maxWaitQueueSize) {
+        this.maxWaitQueueSize = maxWaitQueueSize;
+    }
+
+    public Integer getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    /**
+     * The time, in seconds, after which an idle connection of the producers is closed.
+     */
+    public void setKeepAliveTimeout(Integer keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    public Boolean getPipelining() {
+        return pipelining;
+    }
+
+    /**
+     * Whether the producers use HTTP/1.1 pipelining.
+     */
+    public void setPipelining(Boolean pipelining) {
+        this.pipelining = pipelining;
+    }
+
+    public Integer getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * The time, in millis, the producers wait for a connection to be established.
+     */
+    public void setConnectTimeout(Integer connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Integer getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * The time, in seconds, after which a connection of the producers is closed when no
+     * data is sent or received, 0 to never close it.
+     */
+    public void setIdleTimeout(Integer idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Boolean getPreferNativeTransport() {
+        return preferNativeTransport;
+    }
+
+    /**
+     * Whether the Vert.x instance created by the component should use the native transport
+     * (epoll on Linux) if the related library is on the classpath, NIO is used otherwise.
+     */
+    public void setPreferNativeTransport(Boolean preferNativeTransport) {
+        this.preferNativeTransport = preferNativeTransport;
+    }
+
+    public Boolean getTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Whether TCP_NODELAY is enabled on the server and client connections.
+     */
+    public void setTcpNoDelay(Boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    public Boolean getTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    /**
+     * Whether TCP_QUICKACK is enabled on the server and client connections, native transport only.
+     */
+    public void setTcpQuickAck(Boolean tcpQuickAck) {
+        this.tcpQuickAck = tcpQuickAck;
+    }
+
+    public Boolean getTcpFastOpen() {
+        return tcpFastOpen;
+    }
+
+    /**
+     * Whether TCP_FASTOPEN is enabled on the server and client connections, native transport only.
+     */
+    public void setTcpFastOpen(Boolean tcpFastOpen) {
+        this.tcpFastOpen = tcpFastOpen;
+    }
+
+    public Boolean getReusePort() {
+        return reusePort;
+    }
+
+    /**
+     * Whether SO_REUSEPORT is enabled on the server and client sockets.
+     */
+    public void setReusePort(Boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
+    public Integer getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * The TCP receive buffer size of the server and client connections.
+     */
+    public void setReceiveBufferSize(Integer receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    public Integer getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * The TCP send buffer size of the server and client connections.
+     */
+    public void setSendBufferSize(Integer sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    public boolean isH2c() {
+        return h2c;
+    }
+
+    /**
+     * Whether the producers use HTTP/2 over clear text (h2c), when enabled the HTTP/2
+     * settings are advertised by the servers too.
+     */
+    public void setH2c(boolean h2c) {
+        this.h2c = h2c;
+    }
+
+    public boolean isH2cPriorKnowledge() {
+        return h2cPriorKnowledge;
+    }
+
+    /**
+     * Whether the producers should use h2c with prior knowledge instead of upgrading
+     * an HTTP/1.1 connection.
+     */
+    public void setH2cPriorKnowledge(boolean h2cPriorKnowledge) {
+        this.h2cPriorKnowledge = h2cPriorKnowledge;
+    }
+
+    public Integer getHttp2MaxConcurrentStreams() {
+        return http2MaxConcurrentStreams;
+    }
+
+    /**
+     * The max number of concurrent streams per HTTP/2 connection, used by the producers
+     * as multiplexing limit too.
+     */
+    public void setHttp2MaxConcurrentStreams(Integer http2MaxConcurrentStreams) {
+        this.http2MaxConcurrentStreams = http2MaxConcurrentStreams;
+    }
+
+    public Integer getHttp2InitialWindowSize() {
+        return http2InitialWindowSize;
+    }
+
+    /**
+     * The initial HTTP/2 stream window size.
+     */
+    public void setHttp2InitialWindowSize(Integer http2InitialWindowSize) {
+        this.http2InitialWindowSize = http2InitialWindowSize;
+    }
+
+    public Integer getHttp2ConnectionWindowSize() {
+        return http2ConnectionWindowSize;
+    }
+
+    /**
+     * The HTTP/2 connection window size.
+     */
+    public void setHttp2ConnectionWindowSize(Integer http2ConnectionWindowSize) {
+        this.http2ConnectionWindowSize = http2ConnectionWindowSize;
+    }
+
+    public AddressResolverOptions getAddressResolverOptions() {
+        return addressResolverOptions;
+    }
+
+    /**
+     * The options of the address resolver of the Vert.x instance created by the component,
+     * the dns options below take precedence.
+     */
+    public void setAddressResolverOptions(AddressResolverOptions addressResolverOptions) {
+        this.addressResolverOptions = addressResolverOptions;
+    }
+
+    public Integer getDnsCacheMinTimeToLive() {
+        return dnsCacheMinTimeToLive;
+    }
+
+    /**
+     * The min time in seconds a resolved address is cached, whatever the TTL of the record.
+     */
+    public void setDnsCacheMinTimeToLive(Integer dnsCacheMinTimeToLive) {
+        this.dnsCacheMinTimeToLive = dnsCacheMinTimeToLive;
+    }
+
+    public Integer getDnsCacheMaxTimeToLive() {
+        return dnsCacheMaxTimeToLive;
+    }
+
+    /**
+     * The max time in seconds a resolved address is cached, whatever the TTL of the record.
+     */
+    public void setDnsCacheMaxTimeToLive(Integer dnsCacheMaxTimeToLive) {
+        this.dnsCacheMaxTimeToLive = dnsCacheMaxTimeToLive;
+    }
+
+    public Integer getDnsCacheNegativeTimeToLive() {
+        return dnsCacheNegativeTimeToLive;
+    }
+
+    /**
+     * The time in seconds a failed resolution is cached.
+     */
+    public void setDnsCacheNegativeTimeToLive(Integer dnsCacheNegativeTimeToLive) {
+        this.dnsCacheNegativeTimeToLive = dnsCacheNegativeTimeToLive;
+    }
+
+    public Integer getDnsNdots() {
+        return dnsNdots;
+    }
+
+    /**
+     * The number of dots a name must have to be resolved as is before the search domains
+     * are tried, Kubernetes sets it to 5 so lowering it saves lookups for external names.
+     */
+    public void setDnsNdots(Integer dnsNdots) {
+        this.dnsNdots = dnsNdots;
+    }
+
+    public String getDnsSearchDomains() {
+        return dnsSearchDomains;
+    }
+
+    /**
+     * A comma separated list of the search domains appended to the names to resolve.
+     */
+    public void setDnsSearchDomains(String dnsSearchDomains) {
+        this.dnsSearchDomains = dnsSearchDomains;
+    }
+
+    public Long getDnsQueryTimeout() {
+        return dnsQueryTimeout;
+    }
+
+    /**
+     * The timeout in millis of a dns query.
+     */
+    public void setDnsQueryTimeout(Long dnsQueryTimeout) {
+        this.dnsQueryTimeout = dnsQueryTimeout;
+    }
+
+    public KnativeHttpResolver getResolver() {
+        return resolver;
+    }
+
+    @ManagedAttribute(description = "The number of hosts resolved ahead of time for the producers using preResolve")
+    public long getDnsPreResolutions() {
+        return resolver != null ? resolver.getResolutions() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of failed resolutions of hosts resolved ahead of time")
+    public long getDnsPreResolutionFailures() {
+        return resolver != null ? resolver.getFailures() : 0;
+    }
+
+    @ManagedAttribute(description = "The average time in millis of the resolutions of hosts resolved ahead of time")
+    public double getDnsPreResolutionAverageTime() {
+        return resolver != null ? resolver.getAverageTime() : 0;
+    }
+
+    @ManagedAttribute(description = "The max time in millis of the resolutions of hosts resolved ahead of time")
+    public double getDnsPreResolutionMaxTime() {
+        return resolver != null ? resolver.getMaxTime() : 0;
+    }
+
+    public int getServerInstances() {
+        return serverInstances;
+    }
+
+    /**
+     * The number of Vert.x HttpServer instances started for each host and port the consumers
+     * listen on, each instance runs on its own event loop. Defaults to the size of the
+     * event loop pool of the Vert.x instance.
+     */
+    public void setServerInstances(int serverInstances) {
+        this.serverInstances = serverInstances;
+    }
+
+    public ExecutorService getConsumerExecutorService() {
+        return consumerExecutorService;
+    }
+
+    /**
+     * The executor service used to process the exchanges created by the consumers instead
+     * of the Vert.x event loop, it is expected to reject tasks when saturated.
+     */
+    public void setConsumerExecutorService(ExecutorService consumerExecutorService) {
+        this.consumerExecutorService = consumerExecutorService;
+    }
+
+    public int getConsumerWorkerPoolSize() {
+        return consumerWorkerPoolSize;
+    }
+
+    /**
+     * The number of threads of the worker pool used to process the exchanges created by
+     * the consumers, exchanges are processed on the Vert.x event loop when set to 0.
+     */
+    public void setConsumerWorkerPoolSize(int consumerWorkerPoolSize) {
+        this.consumerWorkerPoolSize = consumerWorkerPoolSize;
+    }
+
+    public int getConsumerWorkerQueueSize() {
+        return consumerWorkerQueueSize;
+    }
+
+    /**
+     * The max number of exchanges waiting for a worker, once reached requests are rejected.
+     */
+    public void setConsumerWorkerQueueSize(int consumerWorkerQueueSize) {
+        this.consumerWorkerQueueSize = consumerWorkerQueueSize;
+    }
+
+    public int getConsumerRejectionStatusCode() {
+        return consumerRejectionStatusCode;
+    }
+
+    /**
+     * The status code returned when a request is rejected because the consumers are saturated.
+     */
+    public void setConsumerRejectionStatusCode(int consumerRejectionStatusCode) {
+        this.consumerRejectionStatusCode = consumerRejectionStatusCode;
+    }
+
+    public int getConsumerRetryAfter() {
+        return consumerRetryAfter;
+    }
+
+    /**
+     * The value, in seconds, of the Retry-After header returned when a request is rejected.
+     */
+    public void setConsumerRetryAfter(int consumerRetryAfter) {
+        this.consumerRetryAfter = consumerRetryAfter;
+    }
+
+    /**
+     * The size of the event loop pool of the Vert.x instance in use, read from the
+     * instance itself as it may have been created outside the component.
+     */
+    private int getEventLoopPoolSize() {
+        int answer = 0;
+        for (EventExecutor ignored : vertx.nettyEventLoopGroup()) {
+            answer++;
+        }
+
+        return answer;
+    }
+
+    /**
+     * The options used to create the client of the producers, including the TCP settings
+     * configured on the component.
+     */
+    WebClientOptions getClientOptions() {
+        return clientOptions;
+    }
+
+    /**
+     * Retains the client shared by the producers with the same target and pool
+     * settings as the given endpoint, the client has to be released once the
+     * producer is stopped.
+     */
+    KnativeHttpClient retainClient(KnativeHttpEndpoint endpoint) {
+        final KnativeHttp.ClientKey key = new KnativeHttp.ClientKey(
+            endpoint.getHost(),
+            endpoint.getPort(),
+            endpoint.getSslContextParameters(),
+            first(endpoint.getMaxPoolSize(), this.maxPoolSize, clientOptions.getMaxPoolSize()),
+            first(endpoint.getMaxWaitQueueSize(), this.maxWaitQueueSize, clientOptions.getMaxWaitQueueSize()),
+            first(endpoint.getKeepAliveTimeout(), this.keepAliveTimeout, clientOptions.getKeepAliveTimeout()),
+            first(endpoint.getPipelining(), this.pipelining, clientOptions.isPipelining()),
+            first(endpoint.getConnectTimeout(), this.connectTimeout, clientOptions.getConnectTimeout()),
+            first(endpoint.getIdleTimeout(), this.idleTimeout, clientOptions.getIdleTimeout()));
+
+        synchronized (clients) {
+            KnativeHttpClient client = clients.computeIfAbsent(key, k -> {
+                WebClientOptions options = new WebClientOptions(clientOptions);
+                options.setMaxPoolSize(k.getMaxPoolSize());
+                options.setMaxWaitQueueSize(k.getMaxWaitQueueSize());
+                options.setKeepAliveTimeout(k.getKeepAliveTimeout());
+                options.setPipelining(k.isPipelining());
+                options.setConnectTimeout(k.getConnectTimeout());
+                options.setIdleTimeout(k.getIdleTimeout());
+
+                return new KnativeHttpClient(vertx, k, options);
+            });
+
+            client.retain();
+
+            return client;
+        }
+    }
+
+    void releaseClient(KnativeHttpClient client) {
+        synchronized (clients) {
+            client.release();
+
+            if (client.isReleased()) {
+                clients.remove(client.getKey(), client);
+            }
+        }
+    }
+
+    /**
+     * The number of clients in use.
+     */
+    int getClientCount() {
+        synchronized (clients) {
+            return clients.size();
+        }
+    }
+
+    /**
+     * Retains the circuit breaker shared by the producers targeting the same host, port
+     * and path with the same circuit breaker settings, the breaker has to be released
+     * once the producer is stopped.
+     */
+    KnativeHttpCircuitBreaker retainCircuitBreaker(KnativeHttpEndpoint endpoint) {
+        final String key = String.join(":",
+            endpoint.getHost(),
+            Integer.toString(endpoint.getPort()),
+            ObjectHelper.supplyIfEmpty(endpoint.getPath(), () -> KnativeHttp.DEFAULT_PATH),
+            Double.toString(endpoint.getCircuitBreakerFailureRateThreshold()),
+            Double.toString(endpoint.getCircuitBreakerSlowCallRateThreshold()),
+            Long.toString(endpoint.getCircuitBreakerSlowCallDuration()),
+            Integer.toString(endpoint.getCircuitBreakerWindowSize()),
+            Integer.toString(endpoint.getCircuitBreakerMinimumCalls()),
+            Long.toString(endpoint.getCircuitBreakerOpenDuration()),
+            Integer.toString(endpoint.getCircuitBreakerHalfOpenCalls()));
+
+        synchronized (circuitBreakers) {
+            KnativeHttpCircuitBreaker breaker = circuitBreakers.computeIfAbsent(key, k -> new KnativeHttpCircuitBreaker(
+                endpoint.getCircuitBreakerFailureRateThreshold(),
+                endpoint.getCircuitBreakerSlowCallRateThreshold(),
+                endpoint.getCircuitBreakerSlowCallDuration(),
+                endpoint.getCircuitBreakerWindowSize(),
+                endpoint.getCircuitBreakerMinimumCalls(),
+                endpoint.getCircuitBreakerOpenDuration(),
+                endpoint.getCircuitBreakerHalfOpenCalls()));
+
+            breaker.references++;
+
+            return breaker;
+        }
+    }
+
+    void releaseCircuitBreaker(KnativeHttpCircuitBreaker breaker) {
+        synchronized (circuitBreakers) {
+            if (--breaker.references == 0) {
+                circuitBreakers.values().remove(breaker);
+            }
+        }
+    }
+
+    /**
+     * The number of circuit breakers in use.
+     */
+    int getCircuitBreakerCount() {
+        synchronized (circuitBreakers) {
+            return circuitBreakers.size();
+        }
+    }
+
+    private static <T> T first(T value, T fallback, T defaultValue) {
+        if (value != null) {
+            return value;
+        }
+
+        return fallback != null ? fallback : defaultValue;
+    }
+
     KnativeHttpConsumerDispatcher getDispatcher(KnativeHttp.ServerKey key) {
-        return registry.computeIfAbsent(key, k -> new KnativeHttpConsumerDispatcher(executor, vertx, k, vertxHttpServerOptions));
+        return registry.computeIfAbsent(key, k -> {
+            return new KnativeHttpConsumerDispatcher(
+                executor,
+                vertx,
+                k,
+                serverOptions,
+                serverInstances > 0 ? serverInstances : getEventLoopPoolSize(),
+                consumerExecutorService,
+                consumerRejectionStatusCode,
+                consumerRetryAfter);
+        });
     }
 }
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests a consumer processes concurrently.
+ *
+ * A permit is acquired before the exchange is created and released, with the
+ * observed latency, once the response has been written. The adaptive limiter
+ * follows an AIMD scheme: the limit grows by one while requests complete close
+ * to the lowest latency observed and is cut when the latency doubles or a
+ * request fails.
+ */
+public abstract class KnativeHttpConcurrencyLimiter {
+    private final AtomicInteger inflight;
+    private final LongAdder rejected;
+
+    protected KnativeHttpConcurrencyLimiter() {
+        this.inflight = new AtomicInteger();
+        this.rejected = new LongAdder();
+    }
+
+    public boolean tryAcquire() {
+        for (;;) {
+            final int current = inflight.get();
+
+            if (current >= getLimit()) {
+                rejected.increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos, boolean failed) {
+        onSample(inflight.getAndDecrement(), latencyNanos, failed);
+    }
+
+    /**
+     * Releases a permit without sampling the request, which has been shed before
+     * being processed so its outcome says nothing about the consumer.
+     */
+    public void cancel() {
+        inflight.decrementAndGet();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public abstract int getLimit();
+
+    protected abstract void onSample(int inflight, long latencyNanos, boolean failed);
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    public static KnativeHttpConcurrencyLimiter fixed(int limit) {
+        return new Fixed(limit);
+    }
+
+    public static KnativeHttpConcurrencyLimiter adaptive(int initialLimit, int maxLimit) {
+        return new Adaptive(initialLimit, maxLimit);
+    }
+
+    // ************************
+    //
+    // Limiters
+    //
+    // ************************
+
+    private static final class Fixed extends KnativeHttpConcurrencyLimiter {
+        private final int limit;
+
+        Fixed(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public int getLimit() {
+            return limit;
+        }
+
+        @Override
+        protected void onSample(int inflight, long latencyNanos, boolean failed) {
+        }
+    }
+
+    private static final class Adaptive extends KnativeHttpConcurrencyLimiter {
+        private static final double BACKOFF_RATIO = 0.9;
+        private static final double LATENCY_TOLERANCE = 2.0;
+        private static final int MIN_LATENCY_WINDOW = 1000;
+
+        private final int maxLimit;
+
+        private volatile int limit;
+        private double estimatedLimit;
+        private long minLatency;
+        private long windowMinLatency;
+        private int windowSamples;
+
+        Adaptive(int initialLimit, int maxLimit) {
+            this.maxLimit = maxLimit;
+            this.limit = Math.min(initialLimit, maxLimit);
+            this.estimatedLimit = this.limit;
+            this.minLatency = Long.MAX_VALUE;
+            this.windowMinLatency = Long.MAX_VALUE;
+        }
+
+        @Override
+        public int getLimit() {
+            return limit;
+        }
+
+        @Override
+        protected synchronized void onSample(int inflight, long latencyNanos, boolean failed) {
+            //
+            // The lowest latency is tracked over a window of samples so the
+            // reference follows a slower or faster downstream.
+            //
+            windowMinLatency = Math.min(windowMinLatency, latencyNanos);
+            if (++windowSamples >= MIN_LATENCY_WINDOW) {
+                minLatency = windowMinLatency;
+                windowMinLatency = Long.MAX_VALUE;
+                windowSamples = 0;
+            } else {
+                minLatency = Math.min(minLatency, latencyNanos);
+            }
+
+            if (failed || latencyNanos > minLatency * LATENCY_TOLERANCE) {
+                estimatedLimit = Math.max(1, estimatedLimit * BACKOFF_RATIO);
+            } else if (inflight * 2 >= limit) {
+                // only grow the limit when it is actually used
+                estimatedLimit = Math.min(maxLimit, estimatedLimit + 1);
+            }
+
+            limit = (int) estimatedLimit;
+        }
+    }
+}
@@ -16,57 +16,59 @@
  */
 package org.apache.camel.component.knative.http;
 
+import java.io.Closeable;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Objects;
-import java.util.function.Predicate;
 
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
 import org.apache.camel.Exchange;
 import org.apache.camel.ExchangePattern;
 import org.apache.camel.Message;
 import org.apache.camel.NoTypeConversionAvailableException;
 import org.apache.camel.Processor;
 import org.apache.camel.TypeConverter;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedResource;
+import org.apache.camel.spi.HeaderFilterStrategy;
 import org.apache.camel.support.DefaultConsumer;
-import org.apache.camel.support.DefaultMessage;
 import org.apache.camel.support.ExchangeHelper;
 import org.apache.camel.support.MessageHelper;
-import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.util.IOHelper;
 
+@ManagedResource(description = "Managed KnativeHttpConsumer")
 public class KnativeHttpConsumer extends DefaultConsumer implements KnativeHttp.PredicatedHandler {
-    private final Predicate<HttpServerRequest> filter;
+    private static final int DEFAULT_ADAPTIVE_INITIAL_LIMIT = 20;
+    private static final int DEFAULT_ADAPTIVE_MAX_LIMIT = 1000;
+
+    private final KnativeHttpHeaderFilter filter;
+    private final KnativeHttpConcurrencyLimiter limiter;
+    private volatile KnativeHttpConsumerDispatcher dispatcher;
 
     public KnativeHttpConsumer(KnativeHttpEndpoint endpoint, Processor processor) {
         super(endpoint, processor);
 
-        filter = v -> {
-            if (!Objects.equals(endpoint.getPath(), v.path())) {
-                return false;
-            }
-            if (ObjectHelper.isEmpty(endpoint.getHeaderFilter())) {
-                return true;
-            }
-
-            for (Map.Entry<String, Object> entry : endpoint.getHeaderFilter().entrySet()) {
-                String ref = entry.getValue().toString();
-                String val = v.getHeader(entry.getKey());
-                boolean matches = Objects.equals(ref, val) || val.matches(ref);
+        this.filter = KnativeHttpHeaderFilter.compile(endpoint.getHeaderFilter());
 
-                if (!matches) {
-                    return false;
-                }
-            }
-
-            return true;
-        };
+        if (endpoint.isAdaptiveConcurrency()) {
+            this.limiter = KnativeHttpConcurrencyLimiter.adaptive(
+                DEFAULT_ADAPTIVE_INITIAL_LIMIT,
+                endpoint.getMaxConcurrentRequests() > 0 ? endpoint.getMaxConcurrentRequests() : DEFAULT_ADAPTIVE_MAX_LIMIT);
+        } else if (endpoint.getMaxConcurrentRequests() > 0) {
+            this.limiter = KnativeHttpConcurrencyLimiter.fixed(endpoint.getMaxConcurrentRequests());
+        } else {
+            this.limiter = null;
+        }
     }
 
     @Override
@@ -80,7 +82,8 @@ public class KnativeHttpConsumer extends DefaultConsumer implements KnativeHttp.
         final KnativeHttpComponent component = endpoint.getComponent();
         final KnativeHttp.ServerKey key = endpoint.getServerKey();
 
-        component.getDispatcher(key).bind(this);
+        dispatcher = component.getDispatcher(key);
+        dispatcher.bind(this);
 
         super.doStart();
     }
@@ -98,51 +101,80 @@ public class KnativeHttpConsumer extends DefaultConsumer implements KnativeHttp.
 
     @Override
     public boolean canHandle(HttpServerRequest request) {
-        return filter.test(request);
+        if (!Objects.equals(getEndpoint().getPath(), request.path())) {
+            return false;
+        }
+
+        return filter.isEmpty() || filter.test(request.headers());
+    }
+
+    @Override
+    public String getPath() {
+        return getEndpoint().getPath();
+    }
+
+    @ManagedAttribute(description = "The max number of requests processed concurrently, -1 if not limited")
+    public int getConcurrencyLimit() {
+        return limiter != null ? limiter.getLimit() : -1;
+    }
+
+    @ManagedAttribute(description = "The number of requests being processed, -1 if not limited")
+    public int getInflightRequests() {
+        return limiter != null ? limiter.getInflight() : -1;
+    }
+
+    @ManagedAttribute(description = "The number of requests rejected because of the concurrency limit")
+    public long getRejectedRequests() {
+        return limiter != null ? limiter.getRejected() : 0;
     }
 
     @Override
     public void handle(HttpServerRequest request) {
         if (request.method() == HttpMethod.POST) {
+            //
+            // Shed the request before its body is read, the worker pool check is
+            // racy so a request may still be rejected once its body is received.
+            //
+            if (dispatcher.isSaturated() || limiter != null && !limiter.tryAcquire()) {
+                dispatcher.reject(request);
+                return;
+            }
+
+            final long start = limiter != null ? System.nanoTime() : 0;
             final Exchange exchange = getEndpoint().createExchange(ExchangePattern.InOut);
             final Message in = toMessage(request, exchange);
+            final Context context = getEndpoint().getComponent().getVertx().getOrCreateContext();
 
-            request.bodyHandler(buffer -> {
-                in.setBody(buffer.getBytes());
+            if (getEndpoint().isStreaming()) {
+                final InputStream body = new KnativeHttpRequestInputStream(
+                    context,
+                    request,
+                    KnativeHttpRequestInputStream.DEFAULT_HIGH_WATER_MARK,
+                    getEndpoint().getStreamingReadTimeout(),
+                    exchange.getProperty(KnativeHttp.DEADLINE_PROPERTY, 0L, Long.class));
 
+                in.setBody(body);
                 exchange.setIn(in);
 
-                try {
-                    createUoW(exchange);
-                    getAsyncProcessor().process(exchange, doneSync -> {
-                        try {
-                            HttpServerResponse response = toHttpResponse(request, exchange.getMessage());
-                            Buffer body = computeResponseBody(exchange.getMessage());
-
-                            // set the content type in the response.
-                            String contentType = MessageHelper.getContentType(exchange.getMessage());
-                            if (contentType != null) {
-                                // set content-type
-                                response.putHeader(Exchange.CONTENT_TYPE, contentType);
-                            }
-
-                            if (body == null) {
-                                request.response().setStatusCode(204);
-                                request.response().putHeader(HttpHeaders.CONTENT_TYPE, "text/plain");
-                                request.response().end("No response available");
-                            } else {
-                                request.response().end(body);
-                            }
-                        } catch (Exception e) {
-                            getExceptionHandler().handleException(e);
-                        }
-                    });
-                } catch (Exception e) {
-                    getExceptionHandler().handleException(e);
-                } finally {
-                    doneUoW(exchange);
+                //
+                // The body is read by the route while it is still being received
+                // so the exchange cannot be processed on the event loop that feeds
+                // the stream.
+                //
+                if (!dispatcher.executeBlocking(request, () -> process(context, request, exchange, body, start))) {
+                    IOHelper.close(body);
+                    cancel();
                 }
-            });
+            } else {
+                request.bodyHandler(buffer -> {
+                    in.setBody(buffer);
+                    exchange.setIn(in);
+
+                    if (!dispatcher.execute(request, () -> process(context, request, exchange, null, start))) {
+                        cancel();
+                    }
+                });
+            }
         } else {
             request.response().setStatusCode(405);
             request.response().putHeader(Exchange.CONTENT_TYPE, "text/plain");
@@ -152,9 +184,87 @@ public class KnativeHttpConsumer extends DefaultConsumer implements KnativeHttp.
         }
     }
 
+    private void process(Context context, HttpServerRequest request, Exchange exchange, Closeable body, long start) {
+        // the caller gave up while the request was waiting to be processed
+        final Long deadline = exchange.getProperty(KnativeHttp.DEADLINE_PROPERTY, Long.class);
+        if (deadline != null && deadline - System.currentTimeMillis() <= 0) {
+            IOHelper.close(body);
+            release(start, true);
+
+            context.runOnContext(v -> {
+                request.response().setStatusCode(504);
+                request.response().putHeader(HttpHeaders.CONTENT_TYPE, "text/plain");
+                request.response().end("Deadline exceeded");
+            });
+
+            return;
+        }
+
+        try {
+            createUoW(exchange);
+            getAsyncProcessor().process(exchange, doneSync -> {
+                // discard any part of a streamed body the route did not consume
+                IOHelper.close(body);
+                release(start, exchange.isFailed());
+
+                if (Vertx.currentContext() == context) {
+                    writeResponse(request, exchange);
+                } else {
+                    context.runOnContext(v -> writeResponse(request, exchange));
+                }
+            });
+        } catch (Exception e) {
+            release(start, true);
+            getExceptionHandler().handleException(e);
+        } finally {
+            doneUoW(exchange);
+        }
+    }
+
+    private void release(long start, boolean failed) {
+        if (limiter != null) {
+            limiter.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    private void cancel() {
+        if (limiter != null) {
+            limiter.cancel();
+        }
+    }
+
+    private void writeResponse(HttpServerRequest request, Exchange exchange) {
+        try {
+            HttpServerResponse response = toHttpResponse(request, exchange.getMessage());
+            Buffer body = computeResponseBody(exchange.getMessage());
+
+            // set the content type in the response.
+            String contentType = MessageHelper.getContentType(exchange.getMessage());
+            if (contentType != null) {
+                // set content-type
+                response.putHeader(Exchange.CONTENT_TYPE, contentType);
+            }
+
+            if (body == null) {
+                request.response().setStatusCode(204);
+                request.response().putHeader(HttpHeaders.CONTENT_TYPE, "text/plain");
+                request.response().end("No response available");
+            } else {
+                request.response().end(body);
+            }
+        } catch (Exception e) {
+            getExceptionHandler().handleException(e);
+
+            // the client would wait forever otherwise
+            if (!request.response().ended()) {
+                request.response().setStatusCode(500).end();
+            }
+        }
+    }
+
     private Message toMessage(HttpServerRequest request, Exchange exchange) {
         KnativeHttpEndpoint endpoint = getEndpoint();
-        Message message = new DefaultMessage(exchange.getContext());
+        Message message = new KnativeHttpMessage(exchange, endpoint.getHeaderFilterStrategy(), request.headers(), request.params());
         String path = request.path();
 
         if (endpoint.getPath() != null) {
@@ -167,14 +277,15 @@ public class KnativeHttpConsumer extends DefaultConsumer implements KnativeHttp.
             }
         }
 
-        for (Map.Entry<String, String> entry : request.headers().entries()) {
-            if (!endpoint.getHeaderFilterStrategy().applyFilterToExternalHeaders(entry.getKey(), entry.getValue(), exchange)) {
-                KnativeHttpSupport.appendHeader(message.getHeaders(), entry.getKey(), entry.getValue());
-            }
-        }
-        for (Map.Entry<String, String> entry : request.params().entries()) {
-            if (!endpoint.getHeaderFilterStrategy().applyFilterToExternalHeaders(entry.getKey(), entry.getValue(), exchange)) {
-                KnativeHttpSupport.appendHeader(message.getHeaders(), entry.getKey(), entry.getValue());
+        // the budget of the caller is turned into a deadline the producers of the exchange honour
+        String timeout = request.getHeader(KnativeHttp.REQUEST_TIMEOUT_HEADER);
+        if (timeout != null) {
+            message.removeHeader(KnativeHttp.REQUEST_TIMEOUT_HEADER);
+
+            try {
+                exchange.setProperty(KnativeHttp.DEADLINE_PROPERTY, System.currentTimeMillis() + Long.parseLong(timeout.trim()));
+            } catch (NumberFormatException e) {
+                // an invalid budget is ignored
             }
         }
 
@@ -182,33 +293,51 @@ public class KnativeHttpConsumer extends DefaultConsumer implements KnativeHttp.
         message.setHeader(Exchange.HTTP_METHOD, request.method());
         message.setHeader(Exchange.HTTP_URI, request.uri());
         message.setHeader(Exchange.HTTP_QUERY, request.query());
+        message.setHeader(Exchange.HTTP_PROTOCOL_VERSION, toProtocolVersion(request.version()));
 
         return message;
     }
 
+    private static String toProtocolVersion(HttpVersion version) {
+        switch (version) {
+        case HTTP_1_0:
+            return "HTTP/1.0";
+        case HTTP_2:
+            return "HTTP/2.0";
+        default:
+            return "HTTP/1.1";
+        }
+    }
+
     private HttpServerResponse toHttpResponse(HttpServerRequest request, Message message) {
         final HttpServerResponse response = request.response();
         final boolean failed = message.getExchange().isFailed();
         final int defaultCode = failed ? 500 : 200;
         final int code = message.getHeader(Exchange.HTTP_RESPONSE_CODE, defaultCode, int.class);
         final TypeConverter tc = message.getExchange().getContext().getTypeConverter();
+        final HeaderFilterStrategy strategy = getEndpoint().getHeaderFilterStrategy();
 
         response.setStatusCode(code);
 
-        for (Map.Entry<String, Object> entry : message.getHeaders().entrySet()) {
-            final String key = entry.getKey();
-            final Object value = entry.getValue();
+        KnativeHttpSupport.forEachHeader(message.getHeaders(), (key, value) -> {
+            if (value instanceof String) {
+                // fast path for the headers received with the request
+                if (!strategy.applyFilterToCamelHeaders(key, value, message.getExchange())) {
+                    response.putHeader(key, (String) value);
+                }
+                return;
+            }
 
             for (Object it: org.apache.camel.support.ObjectHelper.createIterable(value, null)) {
                 String headerValue = tc.convertTo(String.class, it);
                 if (headerValue == null) {
                     continue;
                 }
-                if (!getEndpoint().getHeaderFilterStrategy().applyFilterToCamelHeaders(key, headerValue, message.getExchange())) {
+                if (!strategy.applyFilterToCamelHeaders(key, headerValue, message.getExchange())) {
                     response.putHeader(key, headerValue);
                 }
             }
-        }
+        });
 
         return response;
     }
@@ -233,7 +362,11 @@ public class KnativeHttpConsumer extends DefaultConsumer implements KnativeHttp.
             ExchangeHelper.setFailureHandled(message.getExchange());
         }
 
-        return Buffer.buffer(
+        if (body instanceof Buffer) {
+            return (Buffer) body;
+        }
+
+        return KnativeHttpConverter.toBuffer(
             message.getExchange().getContext().getTypeConverter().mandatoryConvertTo(byte[].class, body)
         );
     }
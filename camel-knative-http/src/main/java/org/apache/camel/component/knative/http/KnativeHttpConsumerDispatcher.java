@@ -16,19 +16,29 @@
  */
 package org.apache.camel.component.knative.http;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
 import org.apache.camel.Exchange;
 import org.apache.camel.support.service.ServiceSupport;
 import org.apache.camel.util.ObjectHelper;
@@ -46,36 +56,232 @@ public final class KnativeHttpConsumerDispatcher {
     private final HttpServerWrapper server;
     private final HttpServerOptions serverOptions;
     private final ExecutorService executor;
+    private final ExecutorService workerPool;
+    private final int rejectionStatusCode;
+    private final String retryAfter;
+    private final int serverInstances;
+    private volatile HandlerIndex index;
 
     public KnativeHttpConsumerDispatcher(ExecutorService executor,  Vertx vertx, KnativeHttp.ServerKey key, HttpServerOptions serverOptions) {
+        this(executor, vertx, key, serverOptions, 1, null, 503, 1);
+    }
+
+    public KnativeHttpConsumerDispatcher(
+            ExecutorService executor,
+            Vertx vertx,
+            KnativeHttp.ServerKey key,
+            HttpServerOptions serverOptions,
+            int serverInstances,
+            ExecutorService workerPool,
+            int rejectionStatusCode,
+            int retryAfter) {
+
         this.executor = executor;
+        this.serverInstances = Math.max(1, serverInstances);
+        this.workerPool = workerPool;
+        this.rejectionStatusCode = rejectionStatusCode;
+        this.retryAfter = Integer.toString(retryAfter);
         this.vertx = vertx;
         this.serverOptions = ObjectHelper.supplyIfEmpty(serverOptions, HttpServerOptions::new);
         this.server = new HttpServerWrapper();
 
-        this.handlers = new CopyOnWriteArraySet<>();
+        this.handlers = new LinkedHashSet<>();
+        this.index = HandlerIndex.EMPTY;
         this.key = key;
         this.refCnt = ReferenceCount.on(server::start, server::stop);
     }
 
+    /**
+     * The number of Vert.x HttpServer instances started to listen on the host and port.
+     */
+    public int getServerInstances() {
+        return serverInstances;
+    }
+
     public void bind(KnativeHttp.PredicatedHandler handler) {
-        if (handlers.add(handler)) {
-            refCnt.retain();
+        synchronized (handlers) {
+            if (handlers.add(handler)) {
+                final HandlerIndex previous = index;
+
+                // published before the server starts so its first requests find the handler
+                index = HandlerIndex.of(handlers);
+
+                try {
+                    refCnt.retain();
+                } catch (RuntimeException e) {
+                    // the server failed to start, the handler can be bound again later
+                    handlers.remove(handler);
+                    index = previous;
+                    refCnt.release();
+
+                    throw e;
+                }
+            }
         }
     }
 
     public void unbind(KnativeHttp.PredicatedHandler handler) {
-        if (handlers.remove(handler)) {
-            refCnt.release();
+        synchronized (handlers) {
+            if (handlers.remove(handler)) {
+                index = HandlerIndex.of(handlers);
+                refCnt.release();
+            }
+        }
+    }
+
+    /**
+     * Runs the given task on the worker pool, if configured, or on the calling thread.
+     *
+     * @return false if the worker pool is saturated, in which case the request has
+     *         already been rejected
+     */
+    public boolean execute(HttpServerRequest request, Runnable task) {
+        if (workerPool == null) {
+            task.run();
+            return true;
+        }
+
+        return submit(request, task);
+    }
+
+    /**
+     * Runs the given task, which is allowed to block, on the worker pool if configured
+     * or on the Vert.x worker pool.
+     *
+     * @return false if the worker pool is saturated, in which case the request has
+     *         already been rejected
+     */
+    public boolean executeBlocking(HttpServerRequest request, Runnable task) {
+        if (workerPool == null) {
+            vertx.executeBlocking(
+                promise -> {
+                    task.run();
+                    promise.complete();
+                },
+                false,
+                null
+            );
+
+            return true;
+        }
+
+        return submit(request, task);
+    }
+
+    private boolean submit(HttpServerRequest request, Runnable task) {
+        try {
+            workerPool.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Rejecting request on path: {}, the worker pool is saturated", request.path());
+
+            reject(request);
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether the worker pool, if configured, can neither run nor queue
+     * another task, so requests can be rejected before their body is read.
+     */
+    public boolean isSaturated() {
+        if (!(workerPool instanceof ThreadPoolExecutor)) {
+            return false;
+        }
+
+        final ThreadPoolExecutor pool = (ThreadPoolExecutor) workerPool;
+
+        return pool.getQueue().remainingCapacity() == 0 && pool.getActiveCount() >= pool.getMaximumPoolSize();
+    }
+
+    /**
+     * Rejects the given request because the consumers are saturated.
+     *
+     * If the body of the request has not been received yet, the connection is closed
+     * once the response is written rather than reading a body that is thrown away.
+     */
+    public void reject(HttpServerRequest request) {
+        final boolean close = !request.isEnded() && request.version() != HttpVersion.HTTP_2;
+
+        HttpServerResponse response = request.response();
+        response.setStatusCode(rejectionStatusCode);
+        response.putHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.putHeader(Exchange.CONTENT_TYPE, "text/plain");
+
+        if (close) {
+            response.putHeader(HttpHeaders.CONNECTION, HttpHeaders.CLOSE);
+        }
+
+        response.end("Too many requests");
+
+        if (close) {
+            request.connection().close();
+        }
+    }
+
+    /**
+     * An immutable snapshot of the bound handlers, grouped by the path they
+     * serve so that a request only evaluates the predicates of the handlers
+     * bound to its path. Handlers that do not expose a path are evaluated for
+     * every request.
+     */
+    private static final class HandlerIndex {
+        static final HandlerIndex EMPTY = new HandlerIndex(Collections.emptyMap(), Collections.emptyList());
+
+        private final Map<String, List<KnativeHttp.PredicatedHandler>> paths;
+        private final List<KnativeHttp.PredicatedHandler> unindexed;
+
+        private HandlerIndex(Map<String, List<KnativeHttp.PredicatedHandler>> paths, List<KnativeHttp.PredicatedHandler> unindexed) {
+            this.paths = paths;
+            this.unindexed = unindexed;
+        }
+
+        KnativeHttp.PredicatedHandler lookup(HttpServerRequest request) {
+            final List<KnativeHttp.PredicatedHandler> candidates = paths.get(request.path());
+
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size(); i++) {
+                    final KnativeHttp.PredicatedHandler handler = candidates.get(i);
+                    if (handler.canHandle(request)) {
+                        return handler;
+                    }
+                }
+            }
+            for (int i = 0; i < unindexed.size(); i++) {
+                final KnativeHttp.PredicatedHandler handler = unindexed.get(i);
+                if (handler.canHandle(request)) {
+                    return handler;
+                }
+            }
+
+            return null;
+        }
+
+        static HandlerIndex of(Set<KnativeHttp.PredicatedHandler> handlers) {
+            final Map<String, List<KnativeHttp.PredicatedHandler>> paths = new HashMap<>();
+            final List<KnativeHttp.PredicatedHandler> unindexed = new ArrayList<>();
+
+            for (KnativeHttp.PredicatedHandler handler : handlers) {
+                if (handler.getPath() != null) {
+                    paths.computeIfAbsent(handler.getPath(), k -> new ArrayList<>()).add(handler);
+                } else {
+                    unindexed.add(handler);
+                }
+            }
+
+            return new HandlerIndex(paths, unindexed);
         }
     }
 
     private final class HttpServerWrapper extends ServiceSupport implements Handler<HttpServerRequest> {
-        private HttpServer server;
+        private final List<HttpServer> servers = new ArrayList<>();
 
         @Override
         protected void doStart() throws Exception {
-            LOGGER.info("Starting Vert.x HttpServer on {}:{}}",
+            LOGGER.info("Starting {} Vert.x HttpServer instance(s) on {}:{}",
+                serverInstances,
                 key.getHost(),
                 key.getPort()
             );
@@ -90,79 +296,104 @@ public final class KnativeHttpConsumerDispatcher {
                 key.getPort());
 
             try {
-                if (server != null) {
+                if (!servers.isEmpty()) {
                     stopAsync().toCompletableFuture().join();
                 }
             } finally {
-                this.server = null;
+                this.servers.clear();
             }
         }
 
         private CompletionStage<Void> startAsync() {
-            server = vertx.createHttpServer(serverOptions);
-            server.requestHandler(this);
+            for (int i = 0; i < serverInstances; i++) {
+                HttpServer server = vertx.createHttpServer(serverOptions);
+                server.requestHandler(this);
+
+                servers.add(server);
+            }
 
             return CompletableFuture.runAsync(
                 () -> {
-                    CountDownLatch latch = new CountDownLatch(1);
+                    CountDownLatch latch = new CountDownLatch(servers.size());
+                    AtomicReference<Throwable> failure = new AtomicReference<>();
 
-                    server.listen(key.getPort(), key.getHost(), result -> {
-                        try {
-                            if (result.failed()) {
-                                LOGGER.warn("Failed to start Vert.x HttpServer on {}:{}, reason: {}",
-                                    key.getHost(),
-                                    key.getPort(),
-                                    result.cause().getMessage()
-                                );
-
-                                throw new RuntimeException(result.cause());
-                            }
+                    //
+                    // Servers listening on the same host and port share the
+                    // connections in a round robin fashion, as listen is invoked
+                    // outside a Vert.x context, each instance gets its own event
+                    // loop.
+                    //
+                    for (HttpServer server : servers) {
+                        server.listen(key.getPort(), key.getHost(), result -> {
+                            try {
+                                if (result.failed()) {
+                                    LOGGER.warn("Failed to start Vert.x HttpServer on {}:{}, reason: {}",
+                                        key.getHost(),
+                                        key.getPort(),
+                                        result.cause().getMessage()
+                                    );
 
-                            LOGGER.info("Vert.x HttpServer started on {}:{}", key.getHost(), key.getPort());
-                        } finally {
-                            latch.countDown();
-                        }
-                    });
+                                    failure.compareAndSet(null, result.cause());
+                                    return;
+                                }
+
+                                LOGGER.info("Vert.x HttpServer started on {}:{}", key.getHost(), key.getPort());
+                            } finally {
+                                latch.countDown();
+                            }
+                        });
+                    }
 
                     try {
                         latch.await();
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
                     }
+
+                    if (failure.get() != null) {
+                        // the instances that did bind must not keep listening
+                        try {
+                            close();
+                        } finally {
+                            servers.clear();
+                        }
+
+                        throw new RuntimeException(failure.get());
+                    }
                 },
                 executor
             );
         }
 
         protected CompletionStage<Void> stopAsync() {
-            return CompletableFuture.runAsync(
-                () -> {
-                    CountDownLatch latch = new CountDownLatch(1);
-
-                    server.close(result -> {
-                        try {
-                            if (result.failed()) {
-                                LOGGER.warn("Failed to close Vert.x HttpServer reason: {}",
-                                    result.cause().getMessage()
-                                );
+            return CompletableFuture.runAsync(this::close, executor);
+        }
 
-                                throw new RuntimeException(result.cause());
-                            }
+        private void close() {
+            CountDownLatch latch = new CountDownLatch(servers.size());
 
-                            LOGGER.info("Vert.x HttpServer stopped");
-                        } finally {
-                            latch.countDown();
+            for (HttpServer server : servers) {
+                server.close(result -> {
+                    try {
+                        if (result.failed()) {
+                            LOGGER.warn("Failed to close Vert.x HttpServer reason: {}",
+                                result.cause().getMessage()
+                            );
+                            return;
                         }
-                    });
 
-                    try {
-                        latch.await();
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
+                        LOGGER.info("Vert.x HttpServer stopped");
+                    } finally {
+                        latch.countDown();
                     }
-                },
-                executor
-            );
+                });
+            }
+
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
         }
 
         @Override
@@ -172,11 +403,10 @@ public final class KnativeHttpConsumerDispatcher {
                 request.headers()
             );
 
-            for (KnativeHttp.PredicatedHandler handler: handlers) {
-                if (handler.canHandle(request)) {
-                    handler.handle(request);
-                    return;
-                }
+            final KnativeHttp.PredicatedHandler handler = index.lookup(request);
+            if (handler != null) {
+                handler.handle(request);
+                return;
             }
 
             LOGGER.warn("No handler found for path: {}, headers: {}",
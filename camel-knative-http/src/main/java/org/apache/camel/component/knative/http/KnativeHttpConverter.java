@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.apache.camel.Converter;
+import org.apache.camel.Exchange;
+
+/**
+ * Converters for the Vert.x {@link Buffer} used as message body by the knative-http
+ * consumer and producer, they share the underlying Netty buffer whenever possible.
+ */
+@Converter(loader = true)
+public final class KnativeHttpConverter {
+    private KnativeHttpConverter() {
+    }
+
+    @Converter
+    public static byte[] toBytes(Buffer buffer) {
+        return buffer.getBytes();
+    }
+
+    @Converter
+    public static InputStream toInputStream(Buffer buffer) {
+        return new ByteBufInputStream(buffer.getByteBuf());
+    }
+
+    @Converter
+    public static ByteBuffer toByteBuffer(Buffer buffer) {
+        return buffer.getByteBuf().nioBuffer();
+    }
+
+    @Converter
+    public static String toString(Buffer buffer, Exchange exchange) {
+        final String charset = exchange != null
+            ? exchange.getProperty(Exchange.CHARSET_NAME, String.class)
+            : null;
+
+        // Vert.x defaults to UTF-8
+        return charset != null
+            ? buffer.toString(charset)
+            : buffer.toString();
+    }
+
+    @Converter
+    public static Buffer toBuffer(byte[] bytes) {
+        return Buffer.buffer(Unpooled.wrappedBuffer(bytes));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.web.codec.BodyCodec;
+import io.vertx.ext.web.codec.spi.BodyStream;
+
+/**
+ * A codec dropping the bytes of the response body as they are received, the body of
+ * the response is always null.
+ *
+ * Unlike {@link BodyCodec#none()}, which aggregates the body before throwing it away,
+ * nothing is buffered so the response only costs its status line and headers.
+ */
+public final class KnativeHttpDiscardBodyCodec implements BodyCodec<Buffer> {
+    public static final KnativeHttpDiscardBodyCodec INSTANCE = new KnativeHttpDiscardBodyCodec();
+
+    private KnativeHttpDiscardBodyCodec() {
+    }
+
+    @Override
+    public void create(Handler<AsyncResult<BodyStream<Buffer>>> handler) {
+        handler.handle(Future.succeededFuture(new DiscardStream()));
+    }
+
+    private static final class DiscardStream implements BodyStream<Buffer> {
+        private final Promise<Buffer> result = Promise.promise();
+
+        @Override
+        public Future<Buffer> result() {
+            return result.future();
+        }
+
+        @Override
+        public void handle(Throwable cause) {
+            result.tryFail(cause);
+        }
+
+        @Override
+        public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public WriteStream<Buffer> write(Buffer data) {
+            return this;
+        }
+
+        @Override
+        public WriteStream<Buffer> write(Buffer data, Handler<AsyncResult<Void>> handler) {
+            if (handler != null) {
+                handler.handle(Future.succeededFuture());
+            }
+            return this;
+        }
+
+        @Override
+        public void end() {
+            result.tryComplete();
+        }
+
+        @Override
+        public void end(Handler<AsyncResult<Void>> handler) {
+            end();
+
+            if (handler != null) {
+                handler.handle(Future.succeededFuture());
+            }
+        }
+
+        @Override
+        public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+            return this;
+        }
+
+        @Override
+        public boolean writeQueueFull() {
+            return false;
+        }
+
+        @Override
+        public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+            return this;
+        }
+    }
+}
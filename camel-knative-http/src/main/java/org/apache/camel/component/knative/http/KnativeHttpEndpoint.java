@@ -54,13 +54,85 @@ public class KnativeHttpEndpoint extends DefaultEndpoint {
 
     @UriParam(label = "consumer")
     private Map<String, Object> headerFilter;
+    @UriParam(label = "consumer")
+    private boolean streaming;
+    @UriParam(label = "consumer", defaultValue = "30000")
+    private long streamingReadTimeout = 30000;
+    @UriParam(label = "consumer")
+    private int maxConcurrentRequests;
+    @UriParam(label = "consumer")
+    private boolean adaptiveConcurrency;
     @UriParam(label = "producer", defaultValue = "true")
     private Boolean throwExceptionOnFailure = Boolean.TRUE;
+    @UriParam(label = "producer")
+    private Integer maxPoolSize;
+    @UriParam(label = "producer")
+    private Integer maxWaitQueueSize;
+    @UriParam(label = "producer")
+    private Integer keepAliveTimeout;
+    @UriParam(label = "producer")
+    private Boolean pipelining;
+    @UriParam(label = "producer")
+    private Integer connectTimeout;
+    @UriParam(label = "producer")
+    private Integer idleTimeout;
+    @UriParam(label = "producer")
+    private long requestTimeout;
+    @UriParam(label = "producer", defaultValue = "1")
+    private int retryMaxAttempts = 1;
+    @UriParam(label = "producer", defaultValue = "502,503,504")
+    private String retryStatusCodes = "502,503,504";
+    @UriParam(label = "producer", defaultValue = "100")
+    private long retryInitialDelay = 100;
+    @UriParam(label = "producer", defaultValue = "10000")
+    private long retryMaxDelay = 10000;
+    @UriParam(label = "producer", defaultValue = "2")
+    private double retryMultiplier = 2;
+    @UriParam(label = "producer", defaultValue = "0.5")
+    private double retryJitter = 0.5;
+    @UriParam(label = "producer")
+    private long retryDeadline;
+    @UriParam(label = "producer")
+    private boolean circuitBreaker;
+    @UriParam(label = "producer", defaultValue = "50")
+    private double circuitBreakerFailureRateThreshold = 50;
+    @UriParam(label = "producer", defaultValue = "100")
+    private double circuitBreakerSlowCallRateThreshold = 100;
+    @UriParam(label = "producer", defaultValue = "60000")
+    private long circuitBreakerSlowCallDuration = 60000;
+    @UriParam(label = "producer", defaultValue = "100")
+    private int circuitBreakerWindowSize = 100;
+    @UriParam(label = "producer", defaultValue = "20")
+    private int circuitBreakerMinimumCalls = 20;
+    @UriParam(label = "producer", defaultValue = "30000")
+    private long circuitBreakerOpenDuration = 30000;
+    @UriParam(label = "producer", defaultValue = "5")
+    private int circuitBreakerHalfOpenCalls = 5;
+    @UriParam(label = "producer")
+    private boolean hedging;
+    @UriParam(label = "producer")
+    private long hedgeDelay;
+    @UriParam(label = "producer", defaultValue = "95")
+    private double hedgePercentile = 95;
+    @UriParam(label = "producer", defaultValue = "5")
+    private double hedgeBudget = 5;
+    @UriParam(label = "producer")
+    private String addresses;
+    @UriParam(label = "producer", defaultValue = "roundRobin")
+    private KnativeHttpLoadBalancer.Strategy loadBalancer = KnativeHttpLoadBalancer.Strategy.roundRobin;
+    @UriParam(label = "producer", defaultValue = "5")
+    private int ejectionFailures = 5;
+    @UriParam(label = "producer", defaultValue = "30000")
+    private long ejectionDuration = 30000;
+    @UriParam(label = "producer")
+    private boolean preResolve;
+    @UriParam(label = "producer")
+    private boolean discardResponse;
 
     public KnativeHttpEndpoint(String uri, KnativeHttpComponent component) {
         super(uri, component);
 
-        this.headerFilterStrategy = new KnativeHttpHeaderFilterStrategy();
+        this.headerFilterStrategy = new KnativeHttpFastHeaderFilterStrategy();
     }
 
     public String getHost() {
@@ -107,6 +179,57 @@ public class KnativeHttpEndpoint extends DefaultEndpoint {
         this.headerFilter = headerFilter;
     }
 
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * If enabled, the exchange is created as soon as the request headers are
+     * received and the body is provided as an InputStream which applies back
+     * pressure to the request. Streamed exchanges are processed on the Vert.x
+     * worker pool.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public long getStreamingReadTimeout() {
+        return streamingReadTimeout;
+    }
+
+    /**
+     * The max time in millis a read of a streamed body waits for the client to send
+     * more data, the read then fails with an IOException. A value of 0 means no limit,
+     * the read also fails once the deadline of the request, if any, has passed.
+     */
+    public void setStreamingReadTimeout(long streamingReadTimeout) {
+        this.streamingReadTimeout = streamingReadTimeout;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * The max number of requests processed concurrently by the consumer, exceeding
+     * requests are rejected. A value of 0 means no limit.
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    /**
+     * If enabled, the number of requests processed concurrently by the consumer is
+     * adjusted according to the observed latency, up to maxConcurrentRequests if set.
+     */
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
     public SSLContextParameters getSslContextParameters() {
         return sslContextParameters;
     }
@@ -123,6 +246,380 @@ public class KnativeHttpEndpoint extends DefaultEndpoint {
         this.throwExceptionOnFailure = throwExceptionOnFailure;
     }
 
+    public Integer getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * The max number of connections to the target host and port, overrides the
+     * component option.
+     */
+    public void setMaxPoolSize(Integer maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public Integer getMaxWaitQueueSize() {
+        return maxWaitQueueSize;
+    }
+
+    /**
+     * The max number of requests waiting for a connection to the target host and port,
+     * overrides the component option.
+     */
+    public void setMaxWaitQueueSize(Integer maxWaitQueueSize) {
+        this.maxWaitQueueSize = maxWaitQueueSize;
+    }
+
+    public Integer getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    /**
+     * The time, in seconds, after which an idle connection is closed, overrides the
+     * component option.
+     */
+    public void setKeepAliveTimeout(Integer keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    public Boolean getPipelining() {
+        return pipelining;
+    }
+
+    /**
+     * Whether to use HTTP/1.1 pipelining, overrides the component option.
+     */
+    public void setPipelining(Boolean pipelining) {
+        this.pipelining = pipelining;
+    }
+
+    public Integer getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * The time, in millis, to wait for a connection to be established, overrides the
+     * component option.
+     */
+    public void setConnectTimeout(Integer connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Integer getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * The time, in seconds, after which a connection is closed when no data is sent or
+     * received, overrides the component option.
+     */
+    public void setIdleTimeout(Integer idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * The time, in millis, to wait for the response of each attempt, 0 to wait forever.
+     * The timeout is shortened to fit the deadline received by the consumer of the
+     * exchange, if any, and sent along so the next hop knows how long it may take.
+     */
+    public void setRequestTimeout(long requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    /**
+     * The max number of attempts made to send a request, including the first one,
+     * requests are retried on connection failures and on the retryStatusCodes.
+     */
+    public void setRetryMaxAttempts(int retryMaxAttempts) {
+        this.retryMaxAttempts = retryMaxAttempts;
+    }
+
+    public String getRetryStatusCodes() {
+        return retryStatusCodes;
+    }
+
+    /**
+     * The comma separated list of status codes, or ranges such as 500-599, on which
+     * a request is retried.
+     */
+    public void setRetryStatusCodes(String retryStatusCodes) {
+        this.retryStatusCodes = retryStatusCodes;
+    }
+
+    public long getRetryInitialDelay() {
+        return retryInitialDelay;
+    }
+
+    /**
+     * The delay in millis before the first retry.
+     */
+    public void setRetryInitialDelay(long retryInitialDelay) {
+        this.retryInitialDelay = retryInitialDelay;
+    }
+
+    public long getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    /**
+     * The max delay in millis between two attempts, a request is not retried when the
+     * target asks to wait longer than that with the Retry-After header.
+     */
+    public void setRetryMaxDelay(long retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    public double getRetryMultiplier() {
+        return retryMultiplier;
+    }
+
+    /**
+     * The factor applied to the retry delay after each attempt.
+     */
+    public void setRetryMultiplier(double retryMultiplier) {
+        this.retryMultiplier = retryMultiplier;
+    }
+
+    public double getRetryJitter() {
+        return retryJitter;
+    }
+
+    /**
+     * The fraction, between 0 and 1, of the retry delay that is randomized.
+     */
+    public void setRetryJitter(double retryJitter) {
+        this.retryJitter = retryJitter;
+    }
+
+    public long getRetryDeadline() {
+        return retryDeadline;
+    }
+
+    /**
+     * The max time in millis spent sending a request including the retries, 0 for no
+     * deadline.
+     */
+    public void setRetryDeadline(long retryDeadline) {
+        this.retryDeadline = retryDeadline;
+    }
+
+    public boolean isCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Whether requests fail fast while the target is failing or slow, the breaker is
+     * shared by the producers with the same host, port, path and circuit breaker
+     * settings.
+     */
+    public void setCircuitBreaker(boolean circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public double getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }
+
+    /**
+     * The percentage of failed calls from which the circuit breaker opens.
+     */
+    public void setCircuitBreakerFailureRateThreshold(double circuitBreakerFailureRateThreshold) {
+        this.circuitBreakerFailureRateThreshold = circuitBreakerFailureRateThreshold;
+    }
+
+    public double getCircuitBreakerSlowCallRateThreshold() {
+        return circuitBreakerSlowCallRateThreshold;
+    }
+
+    /**
+     * The percentage of slow calls from which the circuit breaker opens.
+     */
+    public void setCircuitBreakerSlowCallRateThreshold(double circuitBreakerSlowCallRateThreshold) {
+        this.circuitBreakerSlowCallRateThreshold = circuitBreakerSlowCallRateThreshold;
+    }
+
+    public long getCircuitBreakerSlowCallDuration() {
+        return circuitBreakerSlowCallDuration;
+    }
+
+    /**
+     * The duration in millis above which a call is considered slow.
+     */
+    public void setCircuitBreakerSlowCallDuration(long circuitBreakerSlowCallDuration) {
+        this.circuitBreakerSlowCallDuration = circuitBreakerSlowCallDuration;
+    }
+
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    /**
+     * The number of calls the failure and slow call rates are computed on.
+     */
+    public void setCircuitBreakerWindowSize(int circuitBreakerWindowSize) {
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+    }
+
+    public int getCircuitBreakerMinimumCalls() {
+        return circuitBreakerMinimumCalls;
+    }
+
+    /**
+     * The min number of calls before the circuit breaker evaluates the rates.
+     */
+    public void setCircuitBreakerMinimumCalls(int circuitBreakerMinimumCalls) {
+        this.circuitBreakerMinimumCalls = circuitBreakerMinimumCalls;
+    }
+
+    public long getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    /**
+     * The time in millis the circuit breaker stays open before letting probes through,
+     * it opens again if the probes have not all completed within the same time.
+     */
+    public void setCircuitBreakerOpenDuration(long circuitBreakerOpenDuration) {
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+    }
+
+    public int getCircuitBreakerHalfOpenCalls() {
+        return circuitBreakerHalfOpenCalls;
+    }
+
+    /**
+     * The number of probe calls let through by a half open circuit breaker.
+     */
+    public void setCircuitBreakerHalfOpenCalls(int circuitBreakerHalfOpenCalls) {
+        this.circuitBreakerHalfOpenCalls = circuitBreakerHalfOpenCalls;
+    }
+
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    /**
+     * Whether a second request is sent when the response to an InOut exchange takes too
+     * long, the first successful response is used and the other request is cancelled.
+     * Only enable it for idempotent targets.
+     */
+    public void setHedging(boolean hedging) {
+        this.hedging = hedging;
+    }
+
+    public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    /**
+     * The delay in millis before a request is hedged, by default the delay is the
+     * hedgePercentile of the latency of the last requests.
+     */
+    public void setHedgeDelay(long hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * The percentile of the latency used as hedge delay when no hedgeDelay is set.
+     */
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public double getHedgeBudget() {
+        return hedgeBudget;
+    }
+
+    /**
+     * The max percentage of requests that may be hedged.
+     */
+    public void setHedgeBudget(double hedgeBudget) {
+        this.hedgeBudget = hedgeBudget;
+    }
+
+    public String getAddresses() {
+        return addresses;
+    }
+
+    /**
+     * A comma separated list of addresses, such as host1:8080,host2:8080, the requests
+     * are spread over instead of being sent to the host and port of the endpoint, which
+     * still determine the Host header.
+     */
+    public void setAddresses(String addresses) {
+        this.addresses = addresses;
+    }
+
+    public KnativeHttpLoadBalancer.Strategy getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    /**
+     * How the address of a request is chosen among the configured addresses.
+     */
+    public void setLoadBalancer(KnativeHttpLoadBalancer.Strategy loadBalancer) {
+        this.loadBalancer = loadBalancer;
+    }
+
+    public int getEjectionFailures() {
+        return ejectionFailures;
+    }
+
+    /**
+     * The number of consecutive failures after which an address is no more used for a
+     * while, 0 to never eject addresses.
+     */
+    public void setEjectionFailures(int ejectionFailures) {
+        this.ejectionFailures = ejectionFailures;
+    }
+
+    public long getEjectionDuration() {
+        return ejectionDuration;
+    }
+
+    /**
+     * The time in millis an ejected address is not used.
+     */
+    public void setEjectionDuration(long ejectionDuration) {
+        this.ejectionDuration = ejectionDuration;
+    }
+
+    public boolean isPreResolve() {
+        return preResolve;
+    }
+
+    /**
+     * Whether the host of the target, and the configured addresses, are resolved when the
+     * producer starts so the first requests do not wait for a dns lookup.
+     */
+    public void setPreResolve(boolean preResolve) {
+        this.preResolve = preResolve;
+    }
+
+    public boolean isDiscardResponse() {
+        return discardResponse;
+    }
+
+    /**
+     * Whether the response to InOnly exchanges is discarded: its body is dropped as it is
+     * received and only its status code is checked, the exchange keeps the message sent.
+     */
+    public void setDiscardResponse(boolean discardResponse) {
+        this.discardResponse = discardResponse;
+    }
+
     public KnativeHttp.ServerKey getServerKey() {
         return new KnativeHttp.ServerKey(host, port);
     }
@@ -134,7 +631,7 @@ public class KnativeHttpEndpoint extends DefaultEndpoint {
 
     @Override
     public Producer createProducer() throws Exception {
-        return new KnativeHttpProducer(this, getComponent().getVertx(), getComponent().getVertxHttpClientOptions());
+        return new KnativeHttpProducer(this);
     }
 
     @Override
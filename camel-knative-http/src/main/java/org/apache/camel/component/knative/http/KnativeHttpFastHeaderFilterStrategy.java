@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.HeaderFilterStrategy;
+
+/**
+ * The default filter strategy of the knative-http endpoints.
+ *
+ * It filters the same headers as {@link KnativeHttpHeaderFilterStrategy} but the
+ * names are matched against a prefix tree folding ASCII characters to lower case
+ * as they are read, so no regular expression is evaluated and no lower case copy
+ * of the header name is created. The cost only depends on the length of the name,
+ * whatever the number of distinct names, see KnativeHttpHeaderFilterStrategyBenchmark.
+ */
+public final class KnativeHttpFastHeaderFilterStrategy implements HeaderFilterStrategy {
+    private static final Node OUT_FILTER = new Node();
+
+    static {
+        // the same headers filtered by KnativeHttpHeaderFilterStrategy
+        OUT_FILTER.add("content-length", false);
+        OUT_FILTER.add("content-type", false);
+        OUT_FILTER.add("host", false);
+        OUT_FILTER.add("cache-control", false);
+        OUT_FILTER.add("connection", false);
+        OUT_FILTER.add("date", false);
+        OUT_FILTER.add("pragma", false);
+        OUT_FILTER.add("trailer", false);
+        OUT_FILTER.add("transfer-encoding", false);
+        OUT_FILTER.add("upgrade", false);
+        OUT_FILTER.add("via", false);
+        OUT_FILTER.add("warning", false);
+
+        // equivalent to (?i)(Camel|org\.apache\.camel)[\.|a-z|A-z|0-9]*
+        OUT_FILTER.add("camel", true);
+        OUT_FILTER.add("org.apache.camel", true);
+    }
+
+    @Override
+    public boolean applyFilterToCamelHeaders(String headerName, Object headerValue, Exchange exchange) {
+        if (headerName == null || headerValue == null) {
+            return true;
+        }
+
+        return OUT_FILTER.matches(headerName);
+    }
+
+    @Override
+    public boolean applyFilterToExternalHeaders(String headerName, Object headerValue, Exchange exchange) {
+        return headerName == null || headerValue == null;
+    }
+
+    // ************************
+    //
+    // Prefix tree
+    //
+    // ************************
+
+    private static final class Node {
+        private final Node[] children = new Node[128];
+
+        // the path to this node is a filtered header name
+        private boolean name;
+        // the path to this node is a prefix of the filtered header names
+        private boolean prefix;
+
+        void add(String value, boolean isPrefix) {
+            Node node = this;
+
+            for (int i = 0; i < value.length(); i++) {
+                final char c = fold(value.charAt(i));
+                if (node.children[c] == null) {
+                    node.children[c] = new Node();
+                }
+
+                node = node.children[c];
+            }
+
+            if (isPrefix) {
+                node.prefix = true;
+            } else {
+                node.name = true;
+            }
+        }
+
+        boolean matches(String value) {
+            Node node = this;
+
+            for (int i = 0; i < value.length(); i++) {
+                if (node.prefix && isPrefixTail(value, i)) {
+                    return true;
+                }
+
+                final char c = value.charAt(i);
+                if (c >= 128) {
+                    return false;
+                }
+
+                node = node.children[fold(c)];
+                if (node == null) {
+                    return false;
+                }
+            }
+
+            return node.name || node.prefix;
+        }
+
+        private static boolean isPrefixTail(String value, int start) {
+            for (int i = start; i < value.length(); i++) {
+                final char c = value.charAt(i);
+
+                // [\.|a-z|A-z|0-9], note that A-z includes [\]^_` too
+                if (!(c == '.' || c == '|' || (c >= 'A' && c <= 'z') || (c >= '0' && c <= '9'))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private static char fold(char c) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.vertx.core.MultiMap;
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * A header based request filter compiled once from the endpoint {@code filter.*}
+ * options.
+ *
+ * Each filter value is classified as an exact match, a prefix match (a literal
+ * followed by {@code .*}) or a regular expression, so the per request evaluation
+ * never compiles a pattern and does not allocate.
+ */
+public final class KnativeHttpHeaderFilter {
+    private static final KnativeHttpHeaderFilter EMPTY = new KnativeHttpHeaderFilter(new HeaderMatcher[0]);
+    private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+
+    private final HeaderMatcher[] matchers;
+
+    private KnativeHttpHeaderFilter(HeaderMatcher[] matchers) {
+        this.matchers = matchers;
+    }
+
+    public boolean isEmpty() {
+        return matchers.length == 0;
+    }
+
+    /**
+     * Evaluates the filter against the given headers, a missing header never matches.
+     */
+    public boolean test(MultiMap headers) {
+        for (int i = 0; i < matchers.length; i++) {
+            final HeaderMatcher matcher = matchers[i];
+            final String value = headers.get(matcher.name);
+
+            if (value == null || !matcher.matches(value)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static KnativeHttpHeaderFilter compile(Map<String, Object> filters) {
+        if (ObjectHelper.isEmpty(filters)) {
+            return EMPTY;
+        }
+
+        final HeaderMatcher[] matchers = new HeaderMatcher[filters.size()];
+
+        int i = 0;
+        for (Map.Entry<String, Object> entry : filters.entrySet()) {
+            matchers[i++] = compile(entry.getKey(), entry.getValue().toString());
+        }
+
+        return new KnativeHttpHeaderFilter(matchers);
+    }
+
+    private static HeaderMatcher compile(String name, String ref) {
+        if (isLiteral(ref)) {
+            return new ExactMatcher(name, ref);
+        }
+        if (ref.endsWith(".*") && isLiteral(ref.substring(0, ref.length() - 2))) {
+            return new PrefixMatcher(name, ref.substring(0, ref.length() - 2));
+        }
+
+        return new PatternMatcher(name, ref);
+    }
+
+    private static boolean isLiteral(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (REGEX_META_CHARS.indexOf(value.charAt(i)) != -1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // ************************
+    //
+    // Matchers
+    //
+    // ************************
+
+    private abstract static class HeaderMatcher {
+        final String name;
+
+        HeaderMatcher(String name) {
+            this.name = name;
+        }
+
+        abstract boolean matches(String value);
+    }
+
+    private static final class ExactMatcher extends HeaderMatcher {
+        private final String ref;
+
+        ExactMatcher(String name, String ref) {
+            super(name);
+            this.ref = ref;
+        }
+
+        @Override
+        boolean matches(String value) {
+            return ref.equals(value);
+        }
+    }
+
+    private static final class PrefixMatcher extends HeaderMatcher {
+        private final String prefix;
+
+        PrefixMatcher(String name, String prefix) {
+            super(name);
+            this.prefix = prefix;
+        }
+
+        @Override
+        boolean matches(String value) {
+            // the pattern ".*" does not match line terminators
+            if (!value.startsWith(prefix)) {
+                return false;
+            }
+            for (int i = prefix.length(); i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static final class PatternMatcher extends HeaderMatcher {
+        private final String ref;
+        private final ThreadLocal<Matcher> matcher;
+
+        PatternMatcher(String name, String ref) {
+            super(name);
+
+            final Pattern pattern = Pattern.compile(ref);
+
+            this.ref = ref;
+            this.matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        }
+
+        @Override
+        boolean matches(String value) {
+            return ref.equals(value) || matcher.get().reset(value).matches();
+        }
+    }
+}
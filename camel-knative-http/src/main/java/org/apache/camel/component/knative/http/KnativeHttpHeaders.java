@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import io.vertx.core.MultiMap;
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.HeaderFilterStrategy;
+import org.apache.camel.spi.HeadersMapFactory;
+
+/**
+ * A view over the headers (and query parameters) of a Vert.x request or response
+ * used as Camel message headers.
+ *
+ * A header is filtered and copied from the underlying {@link MultiMap}s the first
+ * time it is read, written or removed, a removed header being recorded as absent.
+ * The whole set of headers is copied only when the map is iterated through its
+ * entry, key or value sets.
+ */
+final class KnativeHttpHeaders extends AbstractMap<String, Object> {
+    private static final Object ABSENT = new Object();
+
+    private final HeadersMapFactory factory;
+    private final HeaderFilterStrategy strategy;
+    private final Exchange exchange;
+    private final MultiMap[] sources;
+    private final Map<String, Object> resolved;
+    private Map<String, Object> headers;
+
+    KnativeHttpHeaders(HeadersMapFactory factory, HeaderFilterStrategy strategy, Exchange exchange, MultiMap... sources) {
+        this.factory = factory;
+        this.strategy = strategy;
+        this.exchange = exchange;
+        this.sources = sources;
+        this.resolved = factory.newMap();
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (headers != null) {
+            return headers.get(key);
+        }
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        Object value = resolved.get(key);
+        if (value == null && !resolved.containsKey(key)) {
+            value = lookup((String) key);
+            resolved.put((String) key, value);
+        }
+
+        return value != ABSENT ? value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (headers != null) {
+            return headers.containsKey(key);
+        }
+
+        if (!(key instanceof String)) {
+            return false;
+        }
+
+        get(key);
+
+        return resolved.get(key) != ABSENT;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (headers != null) {
+            return headers.put(key, value);
+        }
+
+        Object answer = resolved.containsKey(key) ? resolved.get(key) : lookup(key);
+        resolved.put(key, value);
+
+        return answer != ABSENT ? answer : null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (headers != null) {
+            return headers.remove(key);
+        }
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        Object answer = resolved.containsKey(key) ? resolved.get(key) : lookup((String) key);
+        resolved.put((String) key, ABSENT);
+
+        return answer != ABSENT ? answer : null;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        if (headers != null) {
+            headers.forEach(action);
+            return;
+        }
+
+        for (int i = 0; i < sources.length; i++) {
+            for (String name : sources[i].names()) {
+                if (resolved.containsKey(name) || isInPreviousSource(name, i)) {
+                    continue;
+                }
+
+                final Object value = lookup(name);
+                if (value != ABSENT) {
+                    action.accept(name, value);
+                }
+            }
+        }
+        for (Map.Entry<String, Object> entry : resolved.entrySet()) {
+            if (entry.getValue() != ABSENT) {
+                action.accept(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Checks if the headers have been copied from the underlying {@link MultiMap}s.
+     */
+    boolean isMaterialized() {
+        return headers != null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (headers != null) {
+            return headers.isEmpty();
+        }
+
+        for (Object value : resolved.values()) {
+            if (value != ABSENT) {
+                return false;
+            }
+        }
+        for (MultiMap source : sources) {
+            for (Map.Entry<String, String> entry : source) {
+                if (!resolved.containsKey(entry.getKey()) && !strategy.applyFilterToExternalHeaders(entry.getKey(), entry.getValue(), exchange)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return materialize().entrySet();
+    }
+
+    /**
+     * Invokes the given consumer for every header value without copying the headers
+     * that have not been accessed yet: a header with multiple values in the underlying
+     * {@link MultiMap} is reported once per value.
+     */
+    void forEachValue(BiConsumer<String, Object> consumer) {
+        if (headers != null) {
+            headers.forEach(consumer);
+            return;
+        }
+
+        for (MultiMap source : sources) {
+            for (Map.Entry<String, String> entry : source) {
+                if (!resolved.containsKey(entry.getKey()) && !strategy.applyFilterToExternalHeaders(entry.getKey(), entry.getValue(), exchange)) {
+                    consumer.accept(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        for (Map.Entry<String, Object> entry : resolved.entrySet()) {
+            if (entry.getValue() != ABSENT) {
+                consumer.accept(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private boolean isInPreviousSource(String name, int index) {
+        for (int i = 0; i < index; i++) {
+            if (sources[i].contains(name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object lookup(String name) {
+        Object answer = ABSENT;
+
+        for (MultiMap source : sources) {
+            if (!source.contains(name)) {
+                continue;
+            }
+
+            for (String value : source.getAll(name)) {
+                if (strategy.applyFilterToExternalHeaders(name, value, exchange)) {
+                    continue;
+                }
+
+                if (answer == ABSENT) {
+                    answer = value;
+                } else if (answer instanceof List) {
+                    ((List<Object>) answer).add(value);
+                } else {
+                    List<Object> list = new ArrayList<>();
+                    list.add(answer);
+                    list.add(value);
+
+                    answer = list;
+                }
+            }
+        }
+
+        return answer;
+    }
+
+    private Map<String, Object> materialize() {
+        if (headers == null) {
+            Map<String, Object> answer = factory.newMap();
+
+            for (MultiMap source : sources) {
+                for (Map.Entry<String, String> entry : source) {
+                    if (!resolved.containsKey(entry.getKey()) && !strategy.applyFilterToExternalHeaders(entry.getKey(), entry.getValue(), exchange)) {
+                        KnativeHttpSupport.appendHeader(answer, entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            for (Map.Entry<String, Object> entry : resolved.entrySet()) {
+                if (entry.getValue() != ABSENT) {
+                    answer.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            headers = answer;
+        }
+
+        return headers;
+    }
+}
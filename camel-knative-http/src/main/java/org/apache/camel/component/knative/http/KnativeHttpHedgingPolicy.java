@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The policy used by the producer to send a second copy of a request that did not
+ * get a response within a delay, the first successful response wins.
+ *
+ * The delay is either fixed or the configured percentile of the latency of the last
+ * successful requests. The number of hedged requests is capped by a budget: each
+ * request earns a fraction of a hedge and a hedge is only sent when a whole one has
+ * been earned, so over time hedges do not exceed the given percentage of the traffic.
+ */
+public final class KnativeHttpHedgingPolicy {
+    private static final int SAMPLES = 1024;
+    private static final int REFRESH_INTERVAL = 128;
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final long delay;
+    private final double percentile;
+    private final long tokensPerRequest;
+
+    private final AtomicLongArray latencies;
+    private final AtomicLong recorded;
+    private final AtomicLong tokens;
+    private final LongAdder hedges;
+    private volatile long percentileDelay;
+
+    /**
+     * @param delay the fixed delay in millis before the request is hedged, 0 to use the
+     *              latency percentile instead
+     * @param percentile the percentile of the latency used as delay, between 0 and 100
+     * @param budget the max percentage of requests that may be hedged
+     */
+    public KnativeHttpHedgingPolicy(long delay, double percentile, double budget) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("The hedge percentile must be between 0 and 100, got: " + percentile);
+        }
+
+        this.delay = delay;
+        this.percentile = percentile;
+        this.tokensPerRequest = (long) (budget * TOKEN / 100);
+
+        this.latencies = new AtomicLongArray(SAMPLES);
+        this.recorded = new AtomicLong();
+        this.tokens = new AtomicLong();
+        this.hedges = new LongAdder();
+        this.percentileDelay = -1;
+    }
+
+    /**
+     * The delay in millis after which a request is hedged, when the delay is computed
+     * from the latency it is -1 until a first batch of samples has been recorded.
+     */
+    public long getDelay() {
+        return delay > 0 ? delay : percentileDelay;
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * Invoked for each request that can be hedged.
+     *
+     * @return the delay in millis before the request is hedged or -1 if it can't be
+     */
+    public long onRequest() {
+        tokens.getAndUpdate(current -> Math.min(MAX_TOKENS, current + tokensPerRequest));
+
+        return getDelay();
+    }
+
+    /**
+     * @return true if the budget allows to send a hedge
+     */
+    public boolean tryAcquire() {
+        for (;;) {
+            final long current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - TOKEN)) {
+                hedges.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records the latency of a successful request.
+     */
+    public void record(long durationNanos) {
+        final long count = recorded.getAndIncrement();
+
+        latencies.set((int) (count % SAMPLES), durationNanos);
+
+        // the percentile is only computed from time to time as it requires sorting
+        if (delay <= 0 && (count + 1) % REFRESH_INTERVAL == 0) {
+            refresh(Math.min(count + 1, SAMPLES));
+        }
+    }
+
+    private void refresh(long count) {
+        final long[] values = new long[(int) count];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = latencies.get(i);
+        }
+
+        Arrays.sort(values);
+
+        final int index = Math.min(values.length - 1, (int) Math.ceil(percentile / 100 * values.length) - 1);
+
+        percentileDelay = Math.max(1, TimeUnit.NANOSECONDS.toMillis(values[Math.max(0, index)]));
+    }
+}
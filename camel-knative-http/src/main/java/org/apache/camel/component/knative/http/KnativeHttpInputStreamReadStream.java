@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.io.InputStream;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+/**
+ * A {@link ReadStream} fed by an {@link InputStream}, used to send the body of an
+ * outgoing request without loading it in memory.
+ *
+ * The stream is read one chunk at a time on a worker thread and only while the
+ * consumer has demand, so a slow connection pauses the reads.
+ */
+final class KnativeHttpInputStreamReadStream implements ReadStream<Buffer> {
+    static final int DEFAULT_CHUNK_SIZE = 32 * 1024;
+
+    private final Context context;
+    private final InputStream in;
+    private final int chunkSize;
+
+    private Handler<Buffer> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+    private long demand;
+    private boolean reading;
+    private boolean ended;
+
+    KnativeHttpInputStreamReadStream(Context context, InputStream in, int chunkSize) {
+        this.context = context;
+        this.in = in;
+        this.chunkSize = chunkSize;
+        this.demand = Long.MAX_VALUE;
+    }
+
+    @Override
+    public synchronized KnativeHttpInputStreamReadStream exceptionHandler(Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    @Override
+    public KnativeHttpInputStreamReadStream handler(Handler<Buffer> handler) {
+        synchronized (this) {
+            this.handler = handler;
+        }
+
+        read();
+
+        return this;
+    }
+
+    @Override
+    public synchronized KnativeHttpInputStreamReadStream pause() {
+        this.demand = 0;
+        return this;
+    }
+
+    @Override
+    public KnativeHttpInputStreamReadStream resume() {
+        return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public KnativeHttpInputStreamReadStream fetch(long amount) {
+        synchronized (this) {
+            demand += amount;
+            if (demand < 0L) {
+                demand = Long.MAX_VALUE;
+            }
+        }
+
+        read();
+
+        return this;
+    }
+
+    @Override
+    public synchronized KnativeHttpInputStreamReadStream endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    private void read() {
+        synchronized (this) {
+            if (reading || ended || demand == 0 || handler == null) {
+                return;
+            }
+
+            reading = true;
+        }
+
+        context.<Buffer>executeBlocking(
+            promise -> {
+                try {
+                    final byte[] chunk = new byte[chunkSize];
+                    final int n = in.read(chunk);
+
+                    promise.complete(n == -1 ? null : Buffer.buffer(Unpooled.wrappedBuffer(chunk, 0, n)));
+                } catch (Exception e) {
+                    promise.fail(e);
+                }
+            },
+            false,
+            this::onChunk
+        );
+    }
+
+    private void onChunk(AsyncResult<Buffer> result) {
+        final Handler<Buffer> chunkHandler;
+        final Handler<Void> onEnd;
+        final Handler<Throwable> onFailure;
+
+        synchronized (this) {
+            reading = false;
+
+            if (result.failed() || result.result() == null) {
+                ended = true;
+            } else if (demand != Long.MAX_VALUE) {
+                demand--;
+            }
+
+            chunkHandler = handler;
+            onEnd = endHandler;
+            onFailure = exceptionHandler;
+        }
+
+        if (result.failed()) {
+            if (onFailure != null) {
+                onFailure.handle(result.cause());
+            }
+        } else if (result.result() == null) {
+            if (onEnd != null) {
+                onEnd.handle(null);
+            }
+        } else {
+            if (chunkHandler != null) {
+                chunkHandler.handle(result.result());
+            }
+
+            read();
+        }
+    }
+}
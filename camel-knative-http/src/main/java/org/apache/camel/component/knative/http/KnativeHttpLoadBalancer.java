@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.util.ObjectHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Spreads the requests of a producer over the addresses of a target.
+ *
+ * An address failing a number of consecutive times, because of a connection error
+ * or a server error, is ejected for a while. When all the addresses are ejected the
+ * requests are spread over all of them as there is nothing better to do.
+ */
+public final class KnativeHttpLoadBalancer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KnativeHttpLoadBalancer.class);
+
+    public enum Strategy {
+        roundRobin,
+        leastRequests,
+        powerOfTwoChoices
+    }
+
+    private final Address[] addresses;
+    private final Strategy strategy;
+    private final int ejectionFailures;
+    private final long ejectionDuration;
+    private final AtomicInteger index;
+
+    /**
+     * @param addresses the addresses of the target
+     * @param strategy how the address of a request is chosen
+     * @param ejectionFailures the number of consecutive failures after which an address
+     *                         is ejected, 0 to never eject addresses
+     * @param ejectionDuration the time in millis an address stays ejected
+     */
+    public KnativeHttpLoadBalancer(List<Address> addresses, Strategy strategy, int ejectionFailures, long ejectionDuration) {
+        if (ObjectHelper.isEmpty(addresses)) {
+            throw new IllegalArgumentException("At least one address is required");
+        }
+
+        this.addresses = addresses.toArray(new Address[0]);
+        this.strategy = ObjectHelper.notNull(strategy, "strategy");
+        this.ejectionFailures = ejectionFailures;
+        this.ejectionDuration = TimeUnit.MILLISECONDS.toNanos(ejectionDuration);
+        this.index = new AtomicInteger();
+    }
+
+    public List<Address> getAddresses() {
+        return Collections.unmodifiableList(Arrays.asList(addresses));
+    }
+
+    public int getEjectedAddresses() {
+        final long now = System.nanoTime();
+
+        int answer = 0;
+        for (Address address : addresses) {
+            if (address.isEjected(now)) {
+                answer++;
+            }
+        }
+
+        return answer;
+    }
+
+    /**
+     * Chooses the address of a request, {@link #onEnd(Address, boolean)} must be invoked
+     * once the request is done.
+     */
+    public Address choose() {
+        final Address answer;
+
+        if (addresses.length == 1) {
+            answer = addresses[0];
+        } else {
+            final long now = System.nanoTime();
+            final boolean panic = getEjectedAddresses() == addresses.length;
+
+            switch (strategy) {
+            case leastRequests:
+                answer = leastRequests(now, panic);
+                break;
+            case powerOfTwoChoices:
+                answer = powerOfTwoChoices(now, panic);
+                break;
+            default:
+                answer = roundRobin(now, panic);
+                break;
+            }
+        }
+
+        answer.outstanding.incrementAndGet();
+
+        return answer;
+    }
+
+    /**
+     * Records the outcome of a request sent to the given address.
+     */
+    public void onEnd(Address address, boolean failed) {
+        address.outstanding.decrementAndGet();
+
+        if (!failed) {
+            address.failures.set(0);
+        } else if (ejectionFailures > 0 && address.failures.incrementAndGet() >= ejectionFailures) {
+            address.failures.set(0);
+            address.ejectedUntil = System.nanoTime() + ejectionDuration;
+
+            LOGGER.debug("Ejecting address {} after {} consecutive failures", address, ejectionFailures);
+        }
+    }
+
+    private Address roundRobin(long now, boolean panic) {
+        final int start = next();
+
+        for (int i = 0; i < addresses.length; i++) {
+            final Address address = addresses[(start + i) % addresses.length];
+            if (panic || !address.isEjected(now)) {
+                return address;
+            }
+        }
+
+        return addresses[start];
+    }
+
+    private Address leastRequests(long now, boolean panic) {
+        // the scan starts at a different address each time so ties are spread too
+        final int start = next();
+
+        Address answer = null;
+        for (int i = 0; i < addresses.length; i++) {
+            final Address address = addresses[(start + i) % addresses.length];
+            if (!panic && address.isEjected(now)) {
+                continue;
+            }
+            if (answer == null || address.outstanding.get() < answer.outstanding.get()) {
+                answer = address;
+            }
+        }
+
+        return answer != null ? answer : addresses[start];
+    }
+
+    private Address powerOfTwoChoices(long now, boolean panic) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        Address first = pick(random, now, panic);
+        Address second = pick(random, now, panic);
+
+        return second.outstanding.get() < first.outstanding.get() ? second : first;
+    }
+
+    private Address pick(ThreadLocalRandom random, long now, boolean panic) {
+        // a few attempts to find an address that is not ejected before giving up
+        for (int i = 0; i < addresses.length; i++) {
+            final Address address = addresses[random.nextInt(addresses.length)];
+            if (panic || !address.isEjected(now)) {
+                return address;
+            }
+        }
+
+        return roundRobin(now, panic);
+    }
+
+    private int next() {
+        return (index.getAndIncrement() & Integer.MAX_VALUE) % addresses.length;
+    }
+
+    /**
+     * Parses a comma separated list of addresses such as {@code host1:8080,host2:8080},
+     * the given port is used when an address has none.
+     */
+    public static List<Address> parseAddresses(String value, int defaultPort) {
+        final List<Address> answer = new ArrayList<>();
+
+        for (String item : value.split(",")) {
+            final String address = item.trim();
+            if (address.isEmpty()) {
+                continue;
+            }
+
+            // IPv6 addresses are enclosed in brackets, i.e. [::1]:8080
+            final int separator = address.lastIndexOf(':');
+            final boolean hasPort = separator > 0 && address.indexOf(']') < separator && (address.startsWith("[") || address.indexOf(':') == separator);
+
+            String host = hasPort ? address.substring(0, separator) : address;
+            if (host.startsWith("[") && host.endsWith("]")) {
+                host = host.substring(1, host.length() - 1);
+            }
+
+            answer.add(new Address(host, hasPort ? Integer.parseInt(address.substring(separator + 1)) : defaultPort));
+        }
+
+        return answer;
+    }
+
+    public static final class Address {
+        private final String host;
+        private final int port;
+        private final AtomicInteger outstanding;
+        private final AtomicInteger failures;
+        private volatile long ejectedUntil;
+
+        public Address(String host, int port) {
+            this.host = host;
+            this.port = port;
+            this.outstanding = new AtomicInteger();
+            this.failures = new AtomicInteger();
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        /**
+         * The number of requests sent to this address that are not done yet.
+         */
+        public int getOutstandingRequests() {
+            return outstanding.get();
+        }
+
+        private boolean isEjected(long now) {
+            final long until = ejectedUntil;
+            return until != 0 && now - until < 0;
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.Map;
+
+import io.vertx.core.MultiMap;
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.HeaderFilterStrategy;
+import org.apache.camel.support.DefaultMessage;
+
+/**
+ * A message whose headers are backed by the headers of a Vert.x request or response.
+ *
+ * @see KnativeHttpHeaders
+ */
+public class KnativeHttpMessage extends DefaultMessage {
+    private final HeaderFilterStrategy strategy;
+    private final MultiMap[] sources;
+
+    public KnativeHttpMessage(Exchange exchange, HeaderFilterStrategy strategy, MultiMap... sources) {
+        super(exchange);
+
+        this.strategy = strategy;
+        this.sources = sources;
+    }
+
+    @Override
+    protected Map<String, Object> createHeaders() {
+        return new KnativeHttpHeaders(
+            getCamelContext().getHeadersMapFactory(),
+            strategy,
+            getExchange(),
+            sources);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.metrics.MetricsOptions;
+import io.vertx.core.spi.VertxMetricsFactory;
+import io.vertx.core.spi.metrics.HttpClientMetrics;
+import io.vertx.core.spi.metrics.VertxMetrics;
+
+/**
+ * A {@link VertxMetricsFactory} providing the pool gauges of the producers, the
+ * component installs it on the Vert.x instance it creates, a Vert.x instance
+ * supplied to the component has to be created with:
+ *
+ * <pre>
+ * new VertxOptions().setMetricsOptions(KnativeHttpMetricsFactory.newMetricsOptions())
+ * </pre>
+ *
+ * Only the clients created by the component are tracked, the other clients of the
+ * Vert.x instance are not measured.
+ */
+public final class KnativeHttpMetricsFactory implements VertxMetricsFactory {
+    private static final Map<String, KnativeHttpClientMetrics> PENDING = new ConcurrentHashMap<>();
+
+    @Override
+    public VertxMetrics metrics(VertxOptions options) {
+        return new VertxMetrics() {
+            @Override
+            public HttpClientMetrics<?, ?, ?, ?, ?> createHttpClientMetrics(HttpClientOptions options) {
+                final String name = options.getMetricsName();
+                final KnativeHttpClientMetrics metrics = name != null ? PENDING.remove(name) : null;
+
+                if (metrics != null) {
+                    metrics.bind();
+                }
+
+                return metrics;
+            }
+        };
+    }
+
+    /**
+     * The metrics options enabling this factory.
+     */
+    public static MetricsOptions newMetricsOptions() {
+        return new MetricsOptions().setEnabled(true).setFactory(new KnativeHttpMetricsFactory());
+    }
+
+    /**
+     * Makes the given metrics available to the client with the given metrics name, the
+     * client has to be created right after and the registration removed with
+     * {@link #unregister(String)}.
+     */
+    static void register(String metricsName, KnativeHttpClientMetrics metrics) {
+        PENDING.put(metricsName, metrics);
+    }
+
+    static void unregister(String metricsName) {
+        PENDING.remove(metricsName);
+    }
+}
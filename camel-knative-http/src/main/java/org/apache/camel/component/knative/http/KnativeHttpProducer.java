@@ -16,40 +16,78 @@
  */
 package org.apache.camel.component.knative.http;
 
-import java.util.Map;
-
-import io.vertx.core.MultiMap;
-import io.vertx.core.Vertx;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.vertx.core.AsyncResult;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
-import io.vertx.ext.web.client.WebClient;
-import io.vertx.ext.web.client.WebClientOptions;
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.CamelException;
 import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
 import org.apache.camel.InvalidPayloadException;
 import org.apache.camel.Message;
+import org.apache.camel.StreamCache;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.support.DefaultAsyncProducer;
-import org.apache.camel.support.DefaultMessage;
-import org.apache.camel.support.MessageHelper;
+import org.apache.camel.util.IOHelper;
 import org.apache.camel.util.ObjectHelper;
-import org.apache.camel.util.URISupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+@ManagedResource(description = "Managed KnativeHttpProducer")
 public class KnativeHttpProducer extends DefaultAsyncProducer {
     private static final Logger LOGGER = LoggerFactory.getLogger(KnativeHttpProducer.class);
 
-    private final Vertx vertx;
-    private final WebClientOptions clientOptions;
-    private WebClient client;
+    private final KnativeHttpRetryPolicy retryPolicy;
+    private final KnativeHttpHedgingPolicy hedgingPolicy;
+    private final KnativeHttpLoadBalancer loadBalancer;
+    private final KnativeHttpRequestTemplate template;
+    private final LongAdder retries;
+    private volatile KnativeHttpClient client;
+    private volatile KnativeHttpCircuitBreaker circuitBreaker;
 
-    public KnativeHttpProducer(KnativeHttpEndpoint endpoint, Vertx vertx, WebClientOptions clientOptions) {
+    public KnativeHttpProducer(KnativeHttpEndpoint endpoint) {
         super(endpoint);
 
-        this.vertx = ObjectHelper.notNull(vertx, "vertx");
-        this.clientOptions = ObjectHelper.supplyIfEmpty(clientOptions, WebClientOptions::new);
+        this.retries = new LongAdder();
+        this.template = KnativeHttpRequestTemplate.of(endpoint);
+        this.retryPolicy = endpoint.getRetryMaxAttempts() > 1
+            ? new KnativeHttpRetryPolicy(
+                endpoint.getRetryMaxAttempts(),
+                endpoint.getRetryStatusCodes(),
+                endpoint.getRetryInitialDelay(),
+                endpoint.getRetryMaxDelay(),
+                endpoint.getRetryMultiplier(),
+                endpoint.getRetryJitter(),
+                endpoint.getRetryDeadline())
+            : null;
+        this.hedgingPolicy = endpoint.isHedging()
+            ? new KnativeHttpHedgingPolicy(
+                endpoint.getHedgeDelay(),
+                endpoint.getHedgePercentile(),
+                endpoint.getHedgeBudget())
+            : null;
+        this.loadBalancer = ObjectHelper.isNotEmpty(endpoint.getAddresses())
+            ? new KnativeHttpLoadBalancer(
+                KnativeHttpLoadBalancer.parseAddresses(endpoint.getAddresses(), endpoint.getPort()),
+                endpoint.getLoadBalancer(),
+                endpoint.getEjectionFailures(),
+                endpoint.getEjectionDuration())
+            : null;
     }
 
     @Override
@@ -58,89 +96,419 @@ public class KnativeHttpProducer extends DefaultAsyncProducer {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public boolean process(Exchange exchange, AsyncCallback callback) {
-        final byte[] payload;
+        final KnativeHttpEndpoint endpoint = getEndpoint();
+        final Message message = exchange.getMessage();
+        final Object body = message.getBody();
+
+        final Buffer payload;
+        final InputStream in;
+        final ReadStream<Buffer> stream;
+        final long length;
 
         try {
-            payload = exchange.getMessage().getMandatoryBody(byte[].class);
-        } catch (InvalidPayloadException e) {
+            if (body instanceof ReadStream) {
+                payload = null;
+                in = null;
+                stream = (ReadStream<Buffer>) body;
+                length = -1;
+            } else if (body instanceof InputStream || body instanceof File || body instanceof StreamCache) {
+                payload = null;
+                in = toInputStream(message, body);
+                stream = new KnativeHttpInputStreamReadStream(endpoint.getComponent().getVertx().getOrCreateContext(), in, KnativeHttpInputStreamReadStream.DEFAULT_CHUNK_SIZE);
+                length = toContentLength(body);
+            } else {
+                payload = toBuffer(message);
+                in = null;
+                stream = null;
+                // set by Vert.x as the buffer is sent at once
+                length = -1;
+            }
+        } catch (InvalidPayloadException | IOException e) {
             exchange.setException(e);
             callback.done(true);
 
             return true;
         }
 
-        KnativeHttpEndpoint endpoint = getEndpoint();
-        Message message = exchange.getMessage();
+        // without a content length a stream is sent using chunked transfer encoding
+        HttpRequest<Buffer> request = template.newRequest(client.getWebClient());
+        template.appendHeaders(request, exchange, message, length);
 
-        MultiMap headers = MultiMap.caseInsensitiveMultiMap();
-        headers.add(HttpHeaders.HOST, endpoint.getHost());
-        headers.add(HttpHeaders.CONTENT_LENGTH, Integer.toString(payload.length));
+        // the caller of the exchange is not waiting anymore, don't bother the target
+        if (!applyTimeout(exchange, request)) {
+            release(body, in);
+            exchange.setException(new ExchangeTimedOutException(exchange, 0, "Deadline exceeded before invoking " + template.getUri()));
+            callback.done(true);
 
-        String contentType = MessageHelper.getContentType(message);
-        if (contentType != null) {
-            headers.add(HttpHeaders.CONTENT_TYPE, contentType);
+            return true;
         }
 
-        for (Map.Entry<String, Object> entry : message.getHeaders().entrySet()) {
-            if (!endpoint.getHeaderFilterStrategy().applyFilterToCamelHeaders(entry.getKey(), entry.getValue(), exchange)) {
-                headers.add(entry.getKey(), entry.getValue().toString());
-            }
+        // acquired once the body is ready so a permitted call always records its outcome
+        final long permit = tryAcquire();
+        if (permit < 0) {
+            release(body, in);
+            exchange.setException(new CamelException("Circuit breaker open, failing fast invoking " + template.getUri()));
+            callback.done(true);
+
+            return true;
+        }
+
+        if (isDiscardResponse(exchange)) {
+            request = request.as(KnativeHttpDiscardBodyCodec.INSTANCE);
         }
 
-        client.post(endpoint.getPort(), endpoint.getHost(), endpoint.getPath())
-            .putHeaders(headers)
-            .sendBuffer(Buffer.buffer(payload), response -> {
-                if (response.succeeded()) {
-                    HttpResponse<Buffer> result = response.result();
+        if (stream != null) {
+            // a stream can't be sent twice so it is never retried
+            final KnativeHttpLoadBalancer.Address address = balance(request);
+            final long start = System.nanoTime();
 
-                    Message answer = new DefaultMessage(exchange.getContext());
-                    answer.setHeader(Exchange.HTTP_RESPONSE_CODE, result.statusCode());
+            request.sendStream(stream, response -> {
+                onBalanced(address, response, false);
+                onResult(permit, response, start);
+                release(body, in);
+                onResponse(exchange, response);
 
-                    for (Map.Entry<String, String> entry : result.headers().entries()) {
-                        if (!endpoint.getHeaderFilterStrategy().applyFilterToExternalHeaders(entry.getKey(), entry.getValue(), exchange)) {
-                            KnativeHttpSupport.appendHeader(answer.getHeaders(), entry.getKey(), entry.getValue());
-                        }
-                    }
+                callback.done(false);
+            });
+        } else {
+            send(exchange, callback, request, payload, 1, System.nanoTime(), permit);
+        }
 
-                    if (result.body() != null) {
-                        answer.setBody(result.body().getBytes());
-                    }
+        return false;
+    }
 
-                    if (result.statusCode() < 200 || result.statusCode() >= 300) {
-                        String exceptionMessage = String.format(
-                            "HTTP operation failed invoking %s with statusCode: %d, statusMessage: %s",
-                            URISupport.sanitizeUri(getURI()),
-                            result.statusCode(),
-                            result.statusMessage()
-                        );
+    private void send(Exchange exchange, AsyncCallback callback, HttpRequest<Buffer> request, Buffer payload, int attempt, long start, long permit) {
+        final long attemptStart = attempt == 1 ? start : System.nanoTime();
 
-                        exchange.setException(new CamelException(exceptionMessage));
-                    }
+        // only InOut exchanges are hedged as the caller waits for the response
+        final long hedgeDelay = hedgingPolicy != null && exchange.getPattern().isOutCapable()
+            ? hedgingPolicy.onRequest()
+            : -1;
 
-                    answer.setHeader(Exchange.HTTP_RESPONSE_CODE, result.statusCode());
+        // each attempt may go to a different address
+        final KnativeHttpLoadBalancer.Address address = balance(request);
 
-                    exchange.setMessage(answer);
-                } else if (response.failed() && endpoint.getThrowExceptionOnFailure()) {
-                    String exceptionMessage = "HTTP operation failed invoking " + URISupport.sanitizeUri(getURI());
-                    if (response.result() != null) {
-                        exceptionMessage += " with statusCode: " + response.result().statusCode();
+        if (hedgeDelay >= 0) {
+            new HedgedCall(exchange, callback, request, payload, attempt, start, attemptStart, permit).send(hedgeDelay, address);
+        } else {
+            request.sendBuffer(payload, response -> {
+                onBalanced(address, response, false);
+                onLatency(response, attemptStart);
+                onAttempt(exchange, callback, request, payload, attempt, start, attemptStart, permit, response);
+            });
+        }
+    }
+
+    private void onAttempt(
+            Exchange exchange,
+            AsyncCallback callback,
+            HttpRequest<Buffer> request,
+            Buffer payload,
+            int attempt,
+            long start,
+            long attemptStart,
+            long permit,
+            AsyncResult<HttpResponse<Buffer>> response) {
+
+        onResult(permit, response, attemptStart);
+
+        final long delay = retryDelay(response, attempt, start);
+
+        if (delay >= 0) {
+            LOGGER.debug("Retrying request to {} in {}ms, attempt: {}", template.getUri(), delay, attempt);
+
+            retries.increment();
+
+            // the encoded payload is sent again once the timer fires, nothing blocks meanwhile
+            getEndpoint().getComponent().getVertx().setTimer(
+                Math.max(1, delay),
+                id -> {
+                    final long next = applyTimeout(exchange, request) ? tryAcquire() : -1;
+
+                    if (next >= 0) {
+                        send(exchange, callback, request, payload, attempt + 1, start, next);
+                    } else {
+                        // the deadline passed or the breaker opened meanwhile, the last response is the outcome
+                        onResponse(exchange, response);
+                        callback.done(false);
                     }
+                });
 
-                    exchange.setException(new CamelException(exceptionMessage));
-                }
+            return;
+        }
 
-                callback.done(false);
-            });
+        onResponse(exchange, response);
 
-        return false;
+        callback.done(false);
+    }
+
+    /**
+     * Records the latency of the successful requests the hedge delay is computed from.
+     */
+    private void onLatency(AsyncResult<HttpResponse<Buffer>> response, long start) {
+        if (hedgingPolicy != null && response.succeeded() && response.result().statusCode() < 500) {
+            hedgingPolicy.record(System.nanoTime() - start);
+        }
+    }
+
+    private long retryDelay(AsyncResult<HttpResponse<Buffer>> response, int attempt, long start) {
+        if (retryPolicy == null || !isRunAllowed()) {
+            return -1;
+        }
+        if (response.succeeded() && !retryPolicy.isRetriable(response.result().statusCode())) {
+            return -1;
+        }
+
+        return retryPolicy.nextDelay(
+            attempt,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            response.succeeded() ? response.result().getHeader(HttpHeaders.RETRY_AFTER.toString()) : null);
+    }
+
+    /**
+     * Points the request to the address chosen by the load balancer, if any.
+     */
+    private KnativeHttpLoadBalancer.Address balance(HttpRequest<Buffer> request) {
+        if (loadBalancer == null) {
+            return null;
+        }
+
+        final KnativeHttpLoadBalancer.Address address = loadBalancer.choose();
+        request.host(address.getHost()).port(address.getPort());
+
+        return address;
+    }
+
+    private void onBalanced(KnativeHttpLoadBalancer.Address address, AsyncResult<HttpResponse<Buffer>> response, boolean cancelled) {
+        if (address != null) {
+            // a cancelled hedge says nothing about the health of the address
+            loadBalancer.onEnd(address, !cancelled && isFailure(response));
+        }
+    }
+
+    private static boolean isFailure(AsyncResult<HttpResponse<Buffer>> response) {
+        return response.failed() || response.result().statusCode() >= 500;
+    }
+
+    /**
+     * Sets the timeout of the next attempt of the request, the endpoint timeout is
+     * shortened to fit the deadline of the exchange and sent to the target so it does
+     * not keep working once the response is not awaited anymore.
+     *
+     * @return false if the deadline of the exchange has passed
+     */
+    private boolean applyTimeout(Exchange exchange, HttpRequest<Buffer> request) {
+        long timeout = getEndpoint().getRequestTimeout();
+
+        final Long deadline = exchange.getProperty(KnativeHttp.DEADLINE_PROPERTY, Long.class);
+        if (deadline != null) {
+            final long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+
+            timeout = timeout > 0 ? Math.min(timeout, remaining) : remaining;
+        }
+
+        if (timeout > 0) {
+            request.timeout(timeout);
+            request.headers().set(KnativeHttp.REQUEST_TIMEOUT_HEADER, Long.toString(timeout));
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the permit of the circuit breaker, 0 if there is none, or -1 if the call
+     *         has to fail fast
+     */
+    private long tryAcquire() {
+        return circuitBreaker != null ? circuitBreaker.tryAcquire() : 0;
+    }
+
+    /**
+     * Records the outcome of an attempt, connection failures and server errors count as
+     * failures as they denote an unhealthy target.
+     */
+    private void onResult(long permit, AsyncResult<HttpResponse<Buffer>> response, long start) {
+        if (circuitBreaker != null) {
+            circuitBreaker.onResult(permit, System.nanoTime() - start, isFailure(response));
+        }
+    }
+
+    /**
+     * The caller of an InOnly exchange does not wait for the response so it may be
+     * dropped right away.
+     */
+    private boolean isDiscardResponse(Exchange exchange) {
+        return getEndpoint().isDiscardResponse() && !exchange.getPattern().isOutCapable();
+    }
+
+    private void onResponse(Exchange exchange, AsyncResult<HttpResponse<Buffer>> response) {
+        final KnativeHttpEndpoint endpoint = getEndpoint();
+
+        if (response.succeeded() && isDiscardResponse(exchange)) {
+            // the exchange keeps the message sent, only the outcome matters
+            final int statusCode = response.result().statusCode();
+
+            if (statusCode < 200 || statusCode >= 300) {
+                exchange.setException(new CamelException(String.format(
+                    "HTTP operation failed invoking %s with statusCode: %d, statusMessage: %s",
+                    template.getUri(),
+                    statusCode,
+                    response.result().statusMessage()
+                )));
+            }
+        } else if (response.succeeded()) {
+            HttpResponse<Buffer> result = response.result();
+
+            Message answer = new KnativeHttpMessage(exchange, endpoint.getHeaderFilterStrategy(), result.headers());
+            answer.setHeader(Exchange.HTTP_RESPONSE_CODE, result.statusCode());
+
+            if (result.body() != null) {
+                answer.setBody(result.body());
+            }
+
+            if (result.statusCode() < 200 || result.statusCode() >= 300) {
+                String exceptionMessage = String.format(
+                    "HTTP operation failed invoking %s with statusCode: %d, statusMessage: %s",
+                    template.getUri(),
+                    result.statusCode(),
+                    result.statusMessage()
+                );
+
+                exchange.setException(new CamelException(exceptionMessage));
+            }
+
+            answer.setHeader(Exchange.HTTP_RESPONSE_CODE, result.statusCode());
+
+            exchange.setMessage(answer);
+        } else if (response.failed() && endpoint.getThrowExceptionOnFailure()) {
+            String exceptionMessage = "HTTP operation failed invoking " + template.getUri();
+            if (response.result() != null) {
+                exceptionMessage += " with statusCode: " + response.result().statusCode();
+            }
+
+            exchange.setException(new CamelException(exceptionMessage));
+        }
+    }
+
+    @ManagedAttribute(description = "The number of requests retried")
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @ManagedAttribute(description = "The max number of connections to the target")
+    public int getMaxPoolSize() {
+        return client != null ? client.getMaxPoolSize() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of requests waiting for a connection")
+    public int getQueuedRequests() {
+        return client != null ? client.getQueuedRequests() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of requests waiting for a response")
+    public int getActiveRequests() {
+        return client != null ? client.getActiveRequests() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of open connections to the target")
+    public int getOpenConnections() {
+        return client != null ? client.getOpenConnections() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of idle connections to the target")
+    public int getIdleConnections() {
+        return client != null ? client.getIdleConnections() : 0;
+    }
+
+    @ManagedAttribute(description = "The average time in millis spent waiting for a connection")
+    public double getAverageWaitTime() {
+        return client != null ? client.getAverageWaitTime() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of hedged requests")
+    public long getHedgedRequests() {
+        return hedgingPolicy != null ? hedgingPolicy.getHedges() : 0;
+    }
+
+    @ManagedAttribute(description = "The delay in millis before a request is hedged")
+    public long getHedgeDelay() {
+        return hedgingPolicy != null ? hedgingPolicy.getDelay() : -1;
+    }
+
+    @ManagedAttribute(description = "The number of addresses ejected by the load balancer")
+    public int getEjectedAddresses() {
+        return loadBalancer != null ? loadBalancer.getEjectedAddresses() : 0;
+    }
+
+    @ManagedAttribute(description = "The state of the circuit breaker")
+    public String getCircuitBreakerState() {
+        return circuitBreaker != null ? circuitBreaker.getState().name() : null;
+    }
+
+    @ManagedAttribute(description = "The percentage of failed calls recorded by the circuit breaker")
+    public double getCircuitBreakerFailureRate() {
+        return circuitBreaker != null ? circuitBreaker.getFailureRate() : 0;
+    }
+
+    @ManagedAttribute(description = "The percentage of slow calls recorded by the circuit breaker")
+    public double getCircuitBreakerSlowCallRate() {
+        return circuitBreaker != null ? circuitBreaker.getSlowCallRate() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of calls rejected by the circuit breaker")
+    public long getCircuitBreakerRejected() {
+        return circuitBreaker != null ? circuitBreaker.getRejected() : 0;
     }
 
     @Override
-    protected void doInit() throws Exception {
-        super.doInit();
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        // the circuit breaker is shared with the producers having the same target and
+        // settings, it comes first as invalid settings fail the start
+        if (getEndpoint().isCircuitBreaker()) {
+            this.circuitBreaker = getEndpoint().getComponent().retainCircuitBreaker(getEndpoint());
+        }
 
-        this.client = WebClient.create(vertx, clientOptions);
+        // the client is shared with the producers having the same target and pool settings
+        this.client = getEndpoint().getComponent().retainClient(getEndpoint());
+
+        if (getEndpoint().isPreResolve()) {
+            preResolve();
+        }
+    }
+
+    /**
+     * Warms up the resolver cache, the producer does not wait for the resolutions as a
+     * request sent meanwhile just resolves the host by itself.
+     */
+    private void preResolve() {
+        final KnativeHttpResolver resolver = getEndpoint().getComponent().getResolver();
+        if (resolver == null) {
+            return;
+        }
+
+        final Set<String> hosts = new LinkedHashSet<>();
+        if (loadBalancer != null) {
+            for (KnativeHttpLoadBalancer.Address address : loadBalancer.getAddresses()) {
+                hosts.add(address.getHost());
+            }
+        } else {
+            hosts.add(getEndpoint().getHost());
+        }
+
+        for (String host : hosts) {
+            resolver.resolve(host, result -> {
+                if (result.failed()) {
+                    LOGGER.warn("Failed to resolve {}: {}", host, result.cause().getMessage());
+                }
+            });
+        }
     }
 
     @Override
@@ -148,21 +516,149 @@ public class KnativeHttpProducer extends DefaultAsyncProducer {
         super.doStop();
 
         if (this.client != null) {
-            LOGGER.debug("Shutting down client: {}", client);
-            this.client.close();
+            LOGGER.debug("Releasing client: {}", client);
+            getEndpoint().getComponent().releaseClient(this.client);
             this.client = null;
         }
+        if (this.circuitBreaker != null) {
+            getEndpoint().getComponent().releaseCircuitBreaker(this.circuitBreaker);
+            this.circuitBreaker = null;
+        }
+    }
+
+    private static Buffer toBuffer(Message message) throws InvalidPayloadException {
+        Object body = message.getBody();
+
+        // a buffer received from another knative-http endpoint is forwarded as it is
+        if (body instanceof Buffer) {
+            return (Buffer) body;
+        }
+
+        return KnativeHttpConverter.toBuffer(message.getMandatoryBody(byte[].class));
+    }
+
+    private static InputStream toInputStream(Message message, Object body) throws IOException, InvalidPayloadException {
+        if (body instanceof File) {
+            return new FileInputStream((File) body);
+        }
+        if (body instanceof InputStream) {
+            return (InputStream) body;
+        }
+
+        return message.getMandatoryBody(InputStream.class);
+    }
+
+    private static long toContentLength(Object body) {
+        if (body instanceof File) {
+            return ((File) body).length();
+        }
+        if (body instanceof StreamCache) {
+            // an empty cache may just not know its length
+            long length = ((StreamCache) body).length();
+            return length > 0 ? length : -1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Releases the body once it has been sent: a stream cache is reset so it can be
+     * read again while other streams are closed.
+     */
+    private static void release(Object body, InputStream in) {
+        if (body instanceof StreamCache) {
+            ((StreamCache) body).reset();
+        } else {
+            IOHelper.close(in);
+        }
     }
 
-    private String getURI() {
-        String p = getEndpoint().getPath();
+    /**
+     * A request sent a second time when its response takes longer than the hedge delay:
+     * the first successful response wins and the other request is cancelled, if both
+     * fail the last failure is the outcome.
+     */
+    private final class HedgedCall {
+        private final Exchange exchange;
+        private final AsyncCallback callback;
+        private final HttpRequest<Buffer> primary;
+        private final HttpRequest<Buffer> secondary;
+        private final Buffer payload;
+        private final KnativeHttpBufferReadStream primaryBody;
+        private final KnativeHttpBufferReadStream secondaryBody;
+        private final int attempt;
+        private final long start;
+        private final long attemptStart;
+        private final long permit;
+        private final AtomicInteger inflight;
+        private final AtomicBoolean done;
+        private volatile long timer;
+
+        HedgedCall(Exchange exchange, AsyncCallback callback, HttpRequest<Buffer> request, Buffer payload, int attempt, long start, long attemptStart, long permit) {
+            this.exchange = exchange;
+            this.callback = callback;
+            // the buffer is sent as a stream to be able to cancel the request, with a
+            // content length so it is not chunked
+            request.headers().set(HttpHeaders.CONTENT_LENGTH, Integer.toString(payload.length()));
+
+            this.primary = request;
+            this.secondary = request.copy();
+            this.payload = payload;
+            this.primaryBody = new KnativeHttpBufferReadStream(payload);
+            this.secondaryBody = new KnativeHttpBufferReadStream(payload);
+            this.attempt = attempt;
+            this.start = start;
+            this.attemptStart = attemptStart;
+            this.permit = permit;
+            this.inflight = new AtomicInteger(1);
+            this.done = new AtomicBoolean();
+        }
 
-        if (p == null) {
-            p = KnativeHttp.DEFAULT_PATH;
-        } else if (!p.startsWith("/")) {
-            p = "/" + p;
+        void send(long delay, KnativeHttpLoadBalancer.Address address) {
+            timer = getEndpoint().getComponent().getVertx().setTimer(Math.max(1, delay), id -> hedge());
+            primary.sendStream(primaryBody, response -> onResponse(response, address, secondaryBody, attemptStart));
         }
 
-        return String.format("http://%s:%d%s", getEndpoint().getHost(), getEndpoint().getPort(), p);
+        private void hedge() {
+            if (done.get() || !isRunAllowed() || !hedgingPolicy.tryAcquire()) {
+                return;
+            }
+
+            // counted before the check so a failed primary request waits for the hedge
+            inflight.incrementAndGet();
+            if (done.get()) {
+                inflight.decrementAndGet();
+                return;
+            }
+
+            LOGGER.debug("Hedging request to {}, attempt: {}", template.getUri(), attempt);
+
+            // the hedge is likely to go to a different address
+            final KnativeHttpLoadBalancer.Address address = balance(secondary);
+            final long hedgeStart = System.nanoTime();
+
+            secondary.sendStream(secondaryBody, response -> onResponse(response, address, primaryBody, hedgeStart));
+        }
+
+        private void onResponse(AsyncResult<HttpResponse<Buffer>> response, KnativeHttpLoadBalancer.Address address, KnativeHttpBufferReadStream other, long requestStart) {
+            if (done.get()) {
+                // the response of the cancelled request
+                onBalanced(address, response, true);
+                return;
+            }
+
+            onBalanced(address, response, false);
+
+            final boolean succeeded = response.succeeded() && response.result().statusCode() < 500;
+            final int remaining = inflight.decrementAndGet();
+
+            if ((succeeded || remaining == 0) && done.compareAndSet(false, true)) {
+                getEndpoint().getComponent().getVertx().cancelTimer(timer);
+                other.cancel();
+
+                onLatency(response, requestStart);
+                onAttempt(exchange, callback, primary, payload, attempt, start, attemptStart, permit, response);
+            }
+        }
     }
 }
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+
+/**
+ * An {@link InputStream} fed by the chunks of an incoming request.
+ *
+ * The request is paused when the chunks not yet consumed by the reader exceed
+ * the high water mark and resumed, on its own context, once the reader has
+ * drained half of them so the memory used by a request stays bounded.
+ *
+ * A read waiting for the next chunk gives up with an IOException after the read
+ * timeout or once the deadline of the request has passed, so a client that stops
+ * sending without closing the connection does not hold the reading thread forever.
+ */
+final class KnativeHttpRequestInputStream extends InputStream {
+    static final int DEFAULT_HIGH_WATER_MARK = 64 * 1024;
+
+    private final Context context;
+    private final HttpServerRequest request;
+    private final int highWaterMark;
+    private final long readTimeout;
+    private final long deadline;
+    private final Deque<Buffer> chunks;
+
+    private Buffer current;
+    private int position;
+    private int queued;
+    private boolean paused;
+    private boolean ended;
+    private boolean closed;
+    private Throwable failure;
+
+    /**
+     * @param readTimeout the max time in millis to wait for the next chunk, 0 for no limit
+     * @param deadline the time in millis after which reads fail, 0 for no deadline
+     */
+    KnativeHttpRequestInputStream(Context context, HttpServerRequest request, int highWaterMark, long readTimeout, long deadline) {
+        this.context = context;
+        this.request = request;
+        this.highWaterMark = highWaterMark;
+        this.readTimeout = readTimeout;
+        this.deadline = deadline;
+        this.chunks = new ArrayDeque<>();
+
+        request.handler(this::onChunk);
+        request.endHandler(v -> onEnd());
+        request.exceptionHandler(this::onFailure);
+
+        // the connection may be closed without the request being notified
+        request.response().closeHandler(v -> onFailure(new IOException("Connection closed while receiving the request body")));
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int n = read(b, 0, 1);
+
+        return n == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (current == null || position == current.length()) {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+
+            current = chunks.poll();
+            position = 0;
+
+            if (current == null) {
+                if (failure != null) {
+                    throw new IOException(failure);
+                }
+                if (ended) {
+                    return -1;
+                }
+
+                await();
+            }
+        }
+
+        final int n = Math.min(len, current.length() - position);
+
+        current.getBytes(position, position + n, b, off);
+        position += n;
+        queued -= n;
+
+        if (paused && queued <= highWaterMark / 2) {
+            paused = false;
+            context.runOnContext(v -> request.resume());
+        }
+
+        return n;
+    }
+
+    /**
+     * Waits for the next chunk, must be invoked while holding the lock.
+     */
+    private void await() throws IOException {
+        final long now = System.currentTimeMillis();
+
+        long timeout = readTimeout;
+        if (deadline > 0) {
+            final long remaining = deadline - now;
+            if (remaining <= 0) {
+                throw new IOException("Deadline exceeded while receiving the request body");
+            }
+
+            timeout = timeout > 0 ? Math.min(timeout, remaining) : remaining;
+        }
+
+        try {
+            wait(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        if (timeout > 0 && chunks.isEmpty() && !ended && !closed && failure == null && System.currentTimeMillis() - now >= timeout) {
+            throw new SocketTimeoutException("No data received for the request body in " + timeout + " millis");
+        }
+    }
+
+    @Override
+    public synchronized int available() {
+        return queued;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        chunks.clear();
+        current = null;
+        queued = 0;
+
+        if (paused) {
+            // let the remaining chunks flow, they are discarded
+            paused = false;
+            context.runOnContext(v -> request.resume());
+        }
+
+        notifyAll();
+    }
+
+    private synchronized void onChunk(Buffer chunk) {
+        if (closed) {
+            return;
+        }
+
+        chunks.add(chunk);
+        queued += chunk.length();
+
+        if (!paused && queued >= highWaterMark) {
+            paused = true;
+            request.pause();
+        }
+
+        notifyAll();
+    }
+
+    private synchronized void onEnd() {
+        ended = true;
+        notifyAll();
+    }
+
+    private synchronized void onFailure(Throwable cause) {
+        failure = cause;
+        notifyAll();
+    }
+}
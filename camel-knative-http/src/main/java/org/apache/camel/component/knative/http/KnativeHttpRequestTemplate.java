@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.WebClient;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.spi.HeaderFilterStrategy;
+import org.apache.camel.support.MessageHelper;
+import org.apache.camel.util.URISupport;
+
+/**
+ * The parts of the requests sent by a producer that do not depend on the exchange:
+ * the target, the static headers and the uri used in error messages are computed
+ * once so a request only costs its dynamic headers.
+ *
+ * The headers are written straight into the request instead of going through an
+ * intermediate map copied by {@link HttpRequest#putHeaders(MultiMap)}.
+ */
+public final class KnativeHttpRequestTemplate {
+    private final String host;
+    private final int port;
+    private final String path;
+    private final String uri;
+    private final CharSequence hostHeader;
+    private final HeaderFilterStrategy headerFilterStrategy;
+
+    public KnativeHttpRequestTemplate(String host, int port, String path, HeaderFilterStrategy headerFilterStrategy) {
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.uri = URISupport.sanitizeUri(String.format("http://%s:%d%s", host, port, normalize(path)));
+        this.hostHeader = HttpHeaders.createOptimized(host);
+        this.headerFilterStrategy = headerFilterStrategy;
+    }
+
+    public static KnativeHttpRequestTemplate of(KnativeHttpEndpoint endpoint) {
+        return new KnativeHttpRequestTemplate(endpoint.getHost(), endpoint.getPort(), endpoint.getPath(), endpoint.getHeaderFilterStrategy());
+    }
+
+    /**
+     * The sanitized uri of the target.
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * Creates a request to the target carrying the static headers.
+     */
+    public HttpRequest<Buffer> newRequest(WebClient client) {
+        final HttpRequest<Buffer> request = client.post(port, host, path);
+        request.headers().add(HttpHeaders.HOST, hostHeader);
+
+        return request;
+    }
+
+    /**
+     * Appends the headers of the given message to the request, the content length is
+     * only set when it is known and the body is not a buffer as Vert.x computes it
+     * when the whole body is sent at once. Each value of a multi-valued header is
+     * appended on its own.
+     */
+    public void appendHeaders(HttpRequest<Buffer> request, Exchange exchange, Message message, long contentLength) {
+        final MultiMap headers = request.headers();
+
+        if (contentLength >= 0) {
+            headers.add(HttpHeaders.CONTENT_LENGTH, Long.toString(contentLength));
+        }
+
+        final String contentType = MessageHelper.getContentType(message);
+        if (contentType != null) {
+            headers.add(HttpHeaders.CONTENT_TYPE, contentType);
+        }
+
+        KnativeHttpSupport.forEachHeader(message.getHeaders(), (key, value) -> {
+            if (headerFilterStrategy.applyFilterToCamelHeaders(key, value, exchange)) {
+                return;
+            }
+
+            if (value instanceof Iterable) {
+                // a multi-valued header, as set by the consumers, is sent value by value
+                for (Object item : (Iterable<?>) value) {
+                    headers.add(key, item.toString());
+                }
+            } else {
+                headers.add(key, value.toString());
+            }
+        });
+    }
+
+    private static String normalize(String path) {
+        if (path == null) {
+            return KnativeHttp.DEFAULT_PATH;
+        }
+
+        return path.startsWith("/") ? path : "/" + path;
+    }
+}
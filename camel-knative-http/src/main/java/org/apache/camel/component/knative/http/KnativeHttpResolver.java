@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.util.NetUtil;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxInternal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves host names with the address resolver of the Vert.x instance and records
+ * the latency of the resolutions.
+ *
+ * Vert.x clients go through the same resolver, and so the same cache, when they open
+ * a connection so resolving a host ahead of time saves the lookup from the first
+ * requests sent to it. Only the resolutions made through this class are recorded,
+ * the ones made by the clients when connecting are not.
+ */
+public final class KnativeHttpResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KnativeHttpResolver.class);
+
+    private final Vertx vertx;
+    private final LongAdder resolutions;
+    private final LongAdder failures;
+    private final LongAdder totalTime;
+    private final LongAccumulator maxTime;
+
+    public KnativeHttpResolver(Vertx vertx) {
+        this.vertx = vertx;
+        this.resolutions = new LongAdder();
+        this.failures = new LongAdder();
+        this.totalTime = new LongAdder();
+        this.maxTime = new LongAccumulator(Math::max, 0);
+    }
+
+    public long getResolutions() {
+        return resolutions.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * The average time in millis of a resolution.
+     */
+    public double getAverageTime() {
+        final long count = resolutions.sum();
+        return count > 0 ? totalTime.sum() / (count * 1_000_000.0) : 0;
+    }
+
+    /**
+     * The max time in millis of a resolution.
+     */
+    public double getMaxTime() {
+        return maxTime.get() / 1_000_000.0;
+    }
+
+    /**
+     * Resolves the given host, IP addresses are returned as they are.
+     */
+    public void resolve(String host, Handler<AsyncResult<InetAddress>> handler) {
+        if (NetUtil.isValidIpV4Address(host) || NetUtil.isValidIpV6Address(host)) {
+            try {
+                handler.handle(Future.succeededFuture(InetAddress.getByName(host)));
+            } catch (Exception e) {
+                handler.handle(Future.failedFuture(e));
+            }
+
+            return;
+        }
+
+        final long start = System.nanoTime();
+
+        ((VertxInternal) vertx).resolveAddress(host, result -> {
+            final long duration = System.nanoTime() - start;
+
+            resolutions.increment();
+            totalTime.add(duration);
+            maxTime.accumulate(duration);
+
+            if (result.failed()) {
+                failures.increment();
+
+                LOGGER.debug("Failed to resolve {} in {}ms", host, TimeUnit.NANOSECONDS.toMillis(duration), result.cause());
+            } else {
+                LOGGER.debug("Resolved {} to {} in {}ms", host, result.result().getHostAddress(), TimeUnit.NANOSECONDS.toMillis(duration));
+            }
+
+            handler.handle(result);
+        });
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.BitSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * The policy used by the producer to retry a request at transport level, the
+ * delay between attempts grows exponentially and is randomized by the jitter
+ * factor, unless the target sends a {@code Retry-After} header.
+ */
+public final class KnativeHttpRetryPolicy {
+    private final int maxAttempts;
+    private final BitSet statusCodes;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final double multiplier;
+    private final double jitter;
+    private final long deadline;
+
+    /**
+     * @param maxAttempts the max number of attempts, including the first one
+     * @param statusCodes the comma separated list of status codes, or ranges of status
+     *                    codes such as {@code 500-599}, that can be retried
+     * @param initialDelay the delay before the first retry in millis
+     * @param maxDelay the max delay between two attempts in millis, the request is not
+     *                 retried if the target asks to wait longer with {@code Retry-After}
+     * @param multiplier the factor applied to the delay after each attempt
+     * @param jitter the fraction, between 0 and 1, of the delay that is randomized
+     * @param deadline the max time in millis spent sending a request, including the
+     *                 retries, 0 for no deadline
+     */
+    public KnativeHttpRetryPolicy(int maxAttempts, String statusCodes, long initialDelay, long maxDelay, double multiplier, double jitter, long deadline) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("The retry jitter must be between 0 and 1, got: " + jitter);
+        }
+
+        this.maxAttempts = maxAttempts;
+        this.statusCodes = parseStatusCodes(statusCodes);
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.deadline = deadline;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isRetriable(int statusCode) {
+        return statusCode >= 0 && statusCodes.get(statusCode);
+    }
+
+    /**
+     * Computes the delay before the next attempt.
+     *
+     * @param attempt the number of attempts done so far
+     * @param elapsed the time in millis spent since the first attempt
+     * @param retryAfter the value of the {@code Retry-After} header of the last
+     *                   response, if any
+     * @return the delay in millis or -1 if the request must not be retried
+     */
+    public long nextDelay(int attempt, long elapsed, String retryAfter) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+
+        long delay = parseRetryAfter(retryAfter);
+        if (delay > maxDelay) {
+            // the target is not expected to be back before long, the exchange is not
+            // kept waiting for it
+            return -1;
+        }
+        if (delay < 0) {
+            double backoff = Math.min(maxDelay, initialDelay * Math.pow(multiplier, attempt - 1));
+            delay = (long) (backoff - backoff * jitter * ThreadLocalRandom.current().nextDouble());
+        }
+
+        if (deadline > 0 && elapsed + delay > deadline) {
+            return -1;
+        }
+
+        return delay;
+    }
+
+    private static long parseRetryAfter(String value) {
+        if (ObjectHelper.isEmpty(value)) {
+            return -1;
+        }
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            // may be an HTTP date
+        }
+
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static BitSet parseStatusCodes(String value) {
+        final BitSet answer = new BitSet(600);
+
+        if (ObjectHelper.isNotEmpty(value)) {
+            for (String item : value.split(",")) {
+                final String code = item.trim();
+                final int separator = code.indexOf('-');
+
+                if (separator > 0) {
+                    answer.set(Integer.parseInt(code.substring(0, separator).trim()), Integer.parseInt(code.substring(separator + 1).trim()) + 1);
+                } else if (!code.isEmpty()) {
+                    answer.set(Integer.parseInt(code));
+                }
+            }
+        }
+
+        return answer;
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.camel.component.knative.http;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 public final  class KnativeHttpSupport {
@@ -43,6 +44,18 @@ public final  class KnativeHttpSupport {
         headers.put(key, value);
     }
 
+    /**
+     * Invokes the given consumer for every header, the headers backed by a Vert.x
+     * request or response that have not been accessed are not copied.
+     */
+    public static void forEachHeader(Map<String, Object> headers, BiConsumer<String, Object> consumer) {
+        if (headers instanceof KnativeHttpHeaders) {
+            ((KnativeHttpHeaders) headers).forEachValue(consumer);
+        } else {
+            headers.forEach(consumer);
+        }
+    }
+
     public static Map<String, String> asStringMap(Map<String, Object> map) {
         return map.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().toString()));
     }
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import io.vertx.core.MultiMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the header filter compiled by {@link KnativeHttpHeaderFilter} with
+ * the per request {@code String.matches} evaluation it replaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnativeHttpHeaderFilterBenchmark {
+    private Map<String, Object> filters;
+    private KnativeHttpHeaderFilter filter;
+    private MultiMap headers;
+
+    @Setup
+    public void setup() {
+        filters = new LinkedHashMap<>();
+        filters.put("ce-source", "knative://endpoint/myEndpoint");
+        filters.put("ce-type", "org.apache.camel.*");
+        filters.put("ce-id", "[0-9a-f\\-]+");
+
+        filter = KnativeHttpHeaderFilter.compile(filters);
+
+        headers = MultiMap.caseInsensitiveMultiMap();
+        headers.add("Content-Type", "application/json");
+        headers.add("ce-specversion", "0.2");
+        headers.add("ce-source", "knative://endpoint/myEndpoint");
+        headers.add("ce-type", "org.apache.camel.event");
+        headers.add("ce-id", "6c8c5b4e-8a9f-4bd3-9d33-0b0d1f3d9a2c");
+    }
+
+    @Benchmark
+    public boolean regex() {
+        for (Map.Entry<String, Object> entry : filters.entrySet()) {
+            String ref = entry.getValue().toString();
+            String val = headers.get(entry.getKey());
+            boolean matches = Objects.equals(ref, val) || val.matches(ref);
+
+            if (!matches) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return filter.test(headers);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(KnativeHttpHeaderFilterBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.spi.HeaderFilterStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the filter strategies applied to the headers of an outgoing message:
+ * {@code regex} is {@link KnativeHttpHeaderFilterStrategy}, the regular expression
+ * based strategy the endpoints used originally, and {@code trie} is the default
+ * {@link KnativeHttpFastHeaderFilterStrategy}.
+ *
+ * The {@code typical} workload applies the strategies to a few well known names
+ * while the {@code unique} one uses many distinct names, as with headers carrying
+ * ids in their name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnativeHttpHeaderFilterStrategyBenchmark {
+    private static final String[] HEADERS = {
+        "Content-Type",
+        "Content-Length",
+        "Host",
+        "User-Agent",
+        "Accept",
+        "ce-specversion",
+        "ce-type",
+        "ce-source",
+        "ce-id",
+        "CamelHttpResponseCode",
+        "CamelHttpPath",
+        "org.apache.camel.knative.Foo",
+        "X-Request-Id",
+        "traceparent",
+    };
+
+    private static final int UNIQUE_HEADERS = 16 * 1024;
+
+    @Param({"typical", "unique"})
+    public String workload;
+
+    private String[] headers;
+    private int offset;
+    private HeaderFilterStrategy regex;
+    private HeaderFilterStrategy trie;
+
+    @Setup
+    public void setup() {
+        if ("unique".equals(workload)) {
+            headers = new String[UNIQUE_HEADERS];
+            for (int i = 0; i < headers.length; i++) {
+                headers[i] = "X-Request-" + i;
+            }
+        } else {
+            headers = HEADERS;
+        }
+
+        regex = new KnativeHttpHeaderFilterStrategy();
+        trie = new KnativeHttpFastHeaderFilterStrategy();
+    }
+
+    @Benchmark
+    public int regex() {
+        return apply(regex);
+    }
+
+    @Benchmark
+    public int trie() {
+        return apply(trie);
+    }
+
+    private int apply(HeaderFilterStrategy strategy) {
+        int filtered = 0;
+
+        // each invocation applies the strategy to HEADERS.length names
+        for (int i = 0; i < HEADERS.length; i++) {
+            if (strategy.applyFilterToCamelHeaders(headers[offset], "value", null)) {
+                filtered++;
+            }
+
+            offset = offset + 1 < headers.length ? offset + 1 : 0;
+        }
+
+        return filtered;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(KnativeHttpHeaderFilterStrategyBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.concurrent.TimeUnit;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.WebClient;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.spi.HeaderFilterStrategy;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.support.MessageHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the per request overhead of building a request from the template computed
+ * by {@link KnativeHttpRequestTemplate} with building the headers in an intermediate
+ * map copied into the request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnativeHttpProducerBenchmark {
+    private static final String HOST = "my-service.my-namespace.svc.cluster.local";
+    private static final int PORT = 8080;
+    private static final String PATH = "/";
+
+    private CamelContext context;
+    private Vertx vertx;
+    private WebClient client;
+    private HeaderFilterStrategy strategy;
+    private KnativeHttpRequestTemplate template;
+    private Exchange exchange;
+    private Buffer payload;
+
+    @Setup
+    public void setup() {
+        context = new DefaultCamelContext();
+        vertx = Vertx.vertx();
+        client = WebClient.create(vertx);
+        strategy = new KnativeHttpFastHeaderFilterStrategy();
+        template = new KnativeHttpRequestTemplate(HOST, PORT, PATH, strategy);
+        payload = Buffer.buffer("{\"message\": \"hello\"}");
+
+        exchange = new DefaultExchange(context);
+
+        Message message = exchange.getIn();
+        message.setHeader(Exchange.CONTENT_TYPE, "application/json");
+        message.setHeader(Exchange.BREADCRUMB_ID, "ID-1234");
+        message.setHeader("ce-specversion", "0.2");
+        message.setHeader("ce-type", "org.apache.camel.event");
+        message.setHeader("ce-source", "knative://endpoint/myEndpoint");
+        message.setHeader("ce-id", "6c8c5b4e-8a9f-4bd3-9d33-0b0d1f3d9a2c");
+        message.setHeader("ce-time", "2019-10-18T10:15:30.000Z");
+        message.setBody(payload);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        vertx.close();
+        context.stop();
+    }
+
+    @Benchmark
+    public HttpRequest<Buffer> headersMap() {
+        final Message message = exchange.getMessage();
+
+        MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+        headers.add(HttpHeaders.HOST, HOST);
+        headers.add(HttpHeaders.CONTENT_LENGTH, Long.toString(payload.length()));
+
+        String contentType = MessageHelper.getContentType(message);
+        if (contentType != null) {
+            headers.add(HttpHeaders.CONTENT_TYPE, contentType);
+        }
+
+        KnativeHttpSupport.forEachHeader(message.getHeaders(), (key, value) -> {
+            if (!strategy.applyFilterToCamelHeaders(key, value, exchange)) {
+                headers.add(key, value.toString());
+            }
+        });
+
+        return client.post(PORT, HOST, PATH).putHeaders(headers);
+    }
+
+    @Benchmark
+    public HttpRequest<Buffer> template() {
+        HttpRequest<Buffer> request = template.newRequest(client);
+        template.appendHeaders(request, exchange, exchange.getMessage(), -1);
+
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(KnativeHttpProducerBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
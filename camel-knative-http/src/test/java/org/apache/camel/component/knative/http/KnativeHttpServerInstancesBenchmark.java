@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.apache.camel.CamelContext;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.test.AvailablePortFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of a knative-http consumer according to the number of
+ * Vert.x HttpServer instances started for its host and port.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class KnativeHttpServerInstancesBenchmark {
+    @Param({"1", "2", "4", "8"})
+    public int serverInstances;
+
+    private CamelContext context;
+    private Vertx clientVertx;
+    private WebClient client;
+    private int port;
+
+    @Setup
+    public void setup() throws Exception {
+        port = AvailablePortFinder.getNextAvailable();
+
+        context = new DefaultCamelContext();
+        context.getComponent("knative-http", KnativeHttpComponent.class).setServerInstances(serverInstances);
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .setBody().constant("ok");
+        });
+
+        context.start();
+
+        clientVertx = Vertx.vertx();
+        client = WebClient.create(clientVertx, new WebClientOptions().setMaxPoolSize(64).setKeepAlive(true));
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        clientVertx.close();
+        context.stop();
+    }
+
+    @Benchmark
+    public int request() throws Exception {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        client.post(port, "localhost", "/").sendBuffer(Buffer.buffer("event"), response -> {
+            if (response.succeeded()) {
+                result.complete(response.result().statusCode());
+            } else {
+                result.completeExceptionally(response.cause());
+            }
+        });
+
+        return result.get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(KnativeHttpServerInstancesBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -16,77 +16,1126 @@
  */
 package org.apache.camel.component.knative.http;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
 import org.apache.camel.CamelContext;
 import org.apache.camel.CamelException;
 import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
 import org.apache.camel.ProducerTemplate;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.component.mock.MockEndpoint;
 import org.apache.camel.http.common.HttpOperationFailedException;
 import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.spi.HeaderFilterStrategy;
+import org.apache.camel.support.AsyncProcessorHelper;
+import org.apache.camel.support.DefaultExchange;
 import org.apache.camel.test.AvailablePortFinder;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class KnativeHttpTest {
+
+    private CamelContext context;
+    private ProducerTemplate template;
+    private int port;
+
+    // **************************
+    //
+    // Setup
+    //
+    // **************************
+
+    @BeforeEach
+    public void before() {
+        this.context = new DefaultCamelContext();
+        this.template = this.context.createProducerTemplate();
+        this.port = AvailablePortFinder.getNextAvailable();
+    }
+
+    @AfterEach
+    public void after() {
+        if (this.context != null) {
+            this.context.stop();
+        }
+    }
+
+    // **************************
+    //
+    // Tests
+    //
+    // **************************
+
+    @Test
+    void testWithPaths() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d/a/1", port)
+                .routeId("r1")
+                .setBody().simple("${routeId}")
+                .to("mock:r1");
+            b.fromF("knative-http:0.0.0.0:%d/a/2", port)
+                .routeId("r2")
+                .setBody().simple("${routeId}")
+                .to("mock:r2");
+
+            b.from("direct:start")
+                .toD("undertow:http://localhost:" + port + "/a/${body}");
+        });
+
+        context.getEndpoint("mock:r1", MockEndpoint.class).expectedMessageCount(1);
+        context.getEndpoint("mock:r2", MockEndpoint.class).expectedMessageCount(1);
+        context.start();
+
+        assertThat(template.requestBody("direct:start", "1", String.class)).isEqualTo("r1");
+        assertThat(template.requestBody("direct:start", "2", String.class)).isEqualTo("r2");
+
+        MockEndpoint.assertIsSatisfied(context);
+    }
+
+    @Test
+    void testWithPathsAndFilters() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d/a?filter.MyHeader=h1", port)
+                .routeId("r1")
+                .setBody().simple("${routeId}");
+            b.fromF("knative-http:0.0.0.0:%d/a?filter.MyHeader=h2", port)
+                .routeId("r2")
+                .setBody().simple("${routeId}");
+            b.fromF("knative-http:0.0.0.0:%d/b?filter.MyHeader=h1", port)
+                .routeId("r3")
+                .setBody().simple("${routeId}");
+
+            b.from("direct:start")
+                .setHeader("MyHeader").simple("${body}")
+                .toD("undertow:http://localhost:" + port + "/${header.path}");
+        });
+
+        context.start();
+
+        assertThat(template.requestBodyAndHeader("direct:start", "h1", "path", "a", String.class)).isEqualTo("r1");
+        assertThat(template.requestBodyAndHeader("direct:start", "h2", "path", "a", String.class)).isEqualTo("r2");
+        assertThat(template.requestBodyAndHeader("direct:start", "h1", "path", "b", String.class)).isEqualTo("r3");
+        assertThat(template.request("direct:start", e -> {
+            e.getMessage().setHeader("path", "b");
+            e.getMessage().setBody("h2");
+        })).satisfies(e -> {
+            assertThat(e.isFailed()).isTrue();
+            assertThat(e.getException()).isInstanceOf(HttpOperationFailedException.class);
+        });
+    }
+
+    @Test
+    void testWithServerInstances() throws Exception {
+        final KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        component.setServerInstances(4);
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .routeId("r1")
+                .process(e -> threads.add(Thread.currentThread().getName()))
+                .setBody().simple("${routeId}");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d", port);
+        });
+
+        context.start();
+
+        assertThat(component.getDispatcher(new KnativeHttp.ServerKey("0.0.0.0", port)).getServerInstances()).isEqualTo(4);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(template.requestBody("direct:start", "1", String.class)).isEqualTo("r1");
+        }
+
+        // the connections are spread over the instances, each running on its own event loop
+        final WebClient client = WebClient.create(component.getVertx(), new WebClientOptions().setKeepAlive(false));
+        try {
+            for (int i = 0; i < 8; i++) {
+                final CompletableFuture<String> answer = new CompletableFuture<>();
+
+                client.post(port, "localhost", "/").sendBuffer(Buffer.buffer("1"), result -> {
+                    if (result.succeeded()) {
+                        answer.complete(result.result().bodyAsString());
+                    } else {
+                        answer.completeExceptionally(result.cause());
+                    }
+                });
+
+                assertThat(answer.get(10, TimeUnit.SECONDS)).isEqualTo("r1");
+            }
+        } finally {
+            client.close();
+        }
+
+        assertThat(threads).size().isGreaterThan(1);
+
+        context.getRouteController().stopRoute("r1");
+
+        assertThat(template.request("direct:start", e -> e.getMessage().setBody("1"))).satisfies(e -> {
+            assertThat(e.isFailed()).isTrue();
+        });
+    }
+
+    @Test
+    void testServerInstancesDefaultToEventLoopPoolOfVertx() throws Exception {
+        final Vertx vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(3));
+        final KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+
+        component.setVertx(vertx);
+
+        try {
+            RouteBuilder.addRoutes(context, b -> {
+                b.fromF("knative-http:0.0.0.0:%d", port)
+                    .routeId("r1")
+                    .setBody().simple("${routeId}");
+
+                b.from("direct:start")
+                    .toF("knative-http:0.0.0.0:%d", port);
+            });
+
+            context.start();
+
+            assertThat(component.getDispatcher(new KnativeHttp.ServerKey("0.0.0.0", port)).getServerInstances()).isEqualTo(3);
+            assertThat(template.requestBody("direct:start", "1", String.class)).isEqualTo("r1");
+        } finally {
+            context.stop();
+            vertx.close();
+        }
+    }
+
+    @Test
+    void testWithServerInstancesBindFailure() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d", port);
+        });
+
+        context.start();
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final KnativeHttpConsumerDispatcher dispatcher = new KnativeHttpConsumerDispatcher(
+            executor,
+            context.getComponent("knative-http", KnativeHttpComponent.class).getVertx(),
+            new KnativeHttp.ServerKey("0.0.0.0", port),
+            null,
+            4,
+            null,
+            503,
+            1);
+
+        final KnativeHttp.PredicatedHandler handler = new KnativeHttp.PredicatedHandler() {
+            @Override
+            public boolean canHandle(HttpServerRequest request) {
+                return true;
+            }
+
+            @Override
+            public void handle(HttpServerRequest request) {
+                request.response().end("bound");
+            }
+        };
+
+        try {
+            try (ServerSocket socket = new ServerSocket(port)) {
+                assertThatThrownBy(() -> dispatcher.bind(handler))
+                    .hasMessageContaining("Address already in use");
+            }
+
+            // nothing is left behind by the failed start so the handler can be bound again
+            dispatcher.bind(handler);
+
+            for (int i = 0; i < 10; i++) {
+                assertThat(template.requestBody("direct:start", "1", String.class)).isEqualTo("bound");
+            }
+
+            dispatcher.unbind(handler);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDispatcherIndexesHandlerBeforeListening() throws Exception {
+        context.start();
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final KnativeHttpConsumerDispatcher dispatcher = new KnativeHttpConsumerDispatcher(
+            executor,
+            context.getComponent("knative-http", KnativeHttpComponent.class).getVertx(),
+            new KnativeHttp.ServerKey("localhost", port),
+            null);
+
+        final AtomicReference<Boolean> listening = new AtomicReference<>();
+        final KnativeHttp.PredicatedHandler handler = new KnativeHttp.PredicatedHandler() {
+            @Override
+            public boolean canHandle(HttpServerRequest request) {
+                return true;
+            }
+
+            @Override
+            public void handle(HttpServerRequest request) {
+                request.response().end("bound");
+            }
+
+            @Override
+            public String getPath() {
+                // invoked when the handler is indexed
+                listening.compareAndSet(null, isListening(port));
+                return "/";
+            }
+        };
+
+        try {
+            dispatcher.bind(handler);
+
+            // a request accepted as soon as the server listens would find no handler otherwise
+            assertThat(listening).hasValue(false);
+            assertThat(isListening(port)).isTrue();
+
+            dispatcher.unbind(handler);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testWithTransportOptions() throws Exception {
+        KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+        component.setPreferNativeTransport(true);
+        component.setTcpNoDelay(true);
+        component.setTcpQuickAck(true);
+        component.setReusePort(true);
+        component.setReceiveBufferSize(64 * 1024);
+        component.setSendBufferSize(64 * 1024);
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .routeId("r1")
+                .setBody().simple("${routeId}");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d", port);
+        });
+
+        context.start();
+
+        // the native library is not on the test classpath so Vert.x falls back to NIO
+        assertThat(component.getVertx().isNativeTransportEnabled()).isFalse();
+        assertThat(component.getClientOptions().getReceiveBufferSize()).isEqualTo(64 * 1024);
+        assertThat(component.getClientOptions().isReusePort()).isTrue();
+        assertThat(template.requestBody("direct:start", "1", String.class)).isEqualTo("r1");
+    }
+
+    @Test
+    void testPreResolve() throws Exception {
+        KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+        component.setDnsCacheMinTimeToLive(10);
+        component.setDnsCacheMaxTimeToLive(60);
+        component.setDnsCacheNegativeTimeToLive(1);
+        component.setDnsNdots(1);
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .routeId("r1")
+                .setBody().simple("${routeId}");
+
+            b.from("direct:start")
+                .toF("knative-http:localhost:%d?preResolve=true", port);
+        });
+
+        context.start();
+
+        assertThat(waitFor(() -> component.getDnsPreResolutions() == 1)).isTrue();
+        assertThat(component.getDnsPreResolutionFailures()).isEqualTo(0);
+        assertThat(template.requestBody("direct:start", "1", String.class)).isEqualTo("r1");
+    }
+
+    @Test
+    void testRequestTemplateHeaders() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .to("mock:target");
+
+            b.from("direct:start")
+                .toF("knative-http:127.0.0.1:%d", port);
+        });
+
+        MockEndpoint mock = context.getEndpoint("mock:target", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+
+        // the host is the one of the endpoint, not the one of the message
+        mock.expectedHeaderReceived("Host", "127.0.0.1");
+
+        context.start();
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("Host", "elsewhere");
+        headers.put("x-multi", Arrays.asList("a", "b"));
+
+        template.sendBodyAndHeaders("direct:start", "test", headers);
+
+        mock.assertIsSatisfied();
+
+        // each value of a multi-valued header is sent on its own
+        assertThat(mock.getExchanges().get(0).getIn().getHeader("x-multi")).isEqualTo(Arrays.asList("a", "b"));
+    }
+
+    @Test
+    void testRequestTemplateContentLength() throws Exception {
+        context.start();
+
+        KnativeHttpRequestTemplate requestTemplate = new KnativeHttpRequestTemplate("localhost", port, "/", new KnativeHttpHeaderFilterStrategy());
+        WebClient client = WebClient.create(context.getComponent("knative-http", KnativeHttpComponent.class).getVertx());
+
+        try {
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getMessage().setHeader("Content-Length", "1");
+
+            // a buffer is sent at once and Vert.x computes its length
+            HttpRequest<Buffer> request = requestTemplate.newRequest(client);
+            requestTemplate.appendHeaders(request, exchange, exchange.getMessage(), -1);
+
+            assertThat(request.headers().contains("Content-Length")).isFalse();
+
+            // a stream of known length carries it so it is not sent chunked
+            request = requestTemplate.newRequest(client);
+            requestTemplate.appendHeaders(request, exchange, exchange.getMessage(), 42);
+
+            assertThat(request.headers().getAll("Content-Length")).containsExactly("42");
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    void testRequestTemplateUri() {
+        HeaderFilterStrategy strategy = new KnativeHttpHeaderFilterStrategy();
+
+        assertThat(new KnativeHttpRequestTemplate("localhost", 8080, null, strategy).getUri())
+            .isEqualTo("http://localhost:8080/");
+        assertThat(new KnativeHttpRequestTemplate("localhost", 8080, "a/path", strategy).getUri())
+            .isEqualTo("http://localhost:8080/a/path");
+
+        // the uri ends up in error messages and logs
+        assertThat(new KnativeHttpRequestTemplate("localhost", 8080, "/a/path?password=secret", strategy).getUri())
+            .startsWith("http://localhost:8080/a/path?password=")
+            .doesNotContain("secret");
+    }
+
+    @Test
+    void testDiscardResponse() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .choice()
+                    .when(b.body().isEqualTo("fail"))
+                        .setHeader(Exchange.HTTP_RESPONSE_CODE).constant(500)
+                    .end()
+                .setBody().simple("response-${body}");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d?discardResponse=true", port);
+        });
+
+        context.start();
+
+        // the response to an InOnly exchange is dropped, the exchange keeps the message sent
+        assertThat(template.send("direct:start", ExchangePattern.InOnly, e -> e.getMessage().setBody("1"))).satisfies(e -> {
+            assertThat(e.isFailed()).isFalse();
+            assertThat(e.getMessage().getBody(String.class)).isEqualTo("1");
+            assertThat(e.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE)).isNull();
+        });
+        assertThat(template.send("direct:start", ExchangePattern.InOnly, e -> e.getMessage().setBody("fail"))).satisfies(e -> {
+            assertThat(e.isFailed()).isTrue();
+            assertThat(e.getException()).hasMessageContaining("statusCode: 500");
+        });
+
+        // the caller of an InOut exchange gets the response
+        assertThat(template.requestBody("direct:start", "2", String.class)).isEqualTo("response-2");
+    }
+
+    @Test
+    void testRequestTimeout() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .delay(1000)
+                .setBody().constant("late");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d?requestTimeout=100&connectTimeout=1000&idleTimeout=10", port);
+        });
+
+        context.start();
+
+        final long start = System.currentTimeMillis();
+
+        assertThat(template.request("direct:start", e -> e.getMessage().setBody("test"))).satisfies(e -> {
+            assertThat(e.isFailed()).isTrue();
+        });
+        assertThat(System.currentTimeMillis() - start).isLessThan(1000);
+    }
+
+    @Test
+    void testDeadlinePropagation() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final AtomicLong budget = new AtomicLong();
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d/a", port)
+                .choice()
+                    .when(b.body().isEqualTo("slow"))
+                        .delay(300)
+                    .endChoice()
+                .end()
+                .toF("knative-http:0.0.0.0:%d/b", port);
+
+            b.fromF("knative-http:0.0.0.0:%d/b", port)
+                .process(e -> {
+                    counter.incrementAndGet();
+                    budget.set(e.getProperty(KnativeHttp.DEADLINE_PROPERTY, Long.class) - System.currentTimeMillis());
+
+                    assertThat(e.getMessage().getHeader(KnativeHttp.REQUEST_TIMEOUT_HEADER)).isNull();
+                })
+                .setBody().constant("b");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d/a?requestTimeout=2000", port);
+            b.from("direct:short")
+                .toF("knative-http:0.0.0.0:%d/a?requestTimeout=200", port);
+        });
+
+        context.start();
+
+        // the budget of the first hop is propagated to the second one
+        assertThat(template.requestBody("direct:start", "fast", String.class)).isEqualTo("b");
+        assertThat(counter).hasValue(1);
+        assertThat(budget.get()).isGreaterThan(0).isLessThanOrEqualTo(2000);
+
+        // the second hop is not invoked once the deadline has passed
+        assertThat(template.request("direct:short", e -> e.getMessage().setBody("slow"))).satisfies(e -> {
+            assertThat(e.isFailed()).isTrue();
+        });
+
+        Thread.sleep(500);
+
+        assertThat(counter).hasValue(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    void testH2c(boolean priorKnowledge) throws Exception {
+        KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+        component.setH2c(true);
+        component.setH2cPriorKnowledge(priorKnowledge);
+        component.setHttp2MaxConcurrentStreams(16);
+        component.setHttp2InitialWindowSize(1024 * 1024);
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .setBody().header(Exchange.HTTP_PROTOCOL_VERSION);
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d", port);
+        });
+
+        context.start();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(template.requestBody("direct:start", "1", String.class)).isEqualTo("HTTP/2.0");
+        }
+
+        // HTTP/1.1 clients are still served
+        assertThat(template.requestBody("undertow:http://localhost:" + port, "1", String.class)).isEqualTo("HTTP/1.1");
+    }
+
+    @Test
+    void testHeaders() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .setHeader("x-out").simple("${header.X-In}-${header.q}")
+                .removeHeader("x-removed")
+                .setBody().simple("${header.x-multi.size()}-${header.x-removed}");
+        });
+
+        context.start();
+
+        Exchange exchange = template.request("undertow:http://localhost:" + port + "?q=1", e -> {
+            e.getMessage().setHeader(Exchange.HTTP_METHOD, "POST");
+            e.getMessage().setHeader("x-in", "in");
+            e.getMessage().setHeader("x-echo", "echo");
+            e.getMessage().setHeader("x-removed", "removed");
+            e.getMessage().setHeader("x-multi", Arrays.asList("1", "2"));
+            e.getMessage().setBody("test");
+        });
+
+        assertThat(exchange.getMessage().getBody(String.class)).isEqualTo("2-");
+        assertThat(exchange.getMessage().getHeader("x-out", String.class)).isEqualTo("in-1");
+        assertThat(exchange.getMessage().getHeader("x-echo", String.class)).isEqualTo("echo");
+    }
+
+    @Test
+    void testHeadersForwardedLazily() throws Exception {
+        final AtomicReference<Map<String, Object>> received = new AtomicReference<>();
+        final Map<String, Object> seen = new HashMap<>();
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d/forward", port)
+                .process(e -> {
+                    Map<String, Object> headers = e.getMessage().getHeaders();
+                    received.set(headers);
+
+                    // what the knative producer processor and the cloud events mapping do
+                    headers.remove("Host");
+                    headers.putIfAbsent("ce-type", "org.apache.camel.event");
+                    headers.forEach(seen::put);
+                })
+                .toF("knative-http:0.0.0.0:%d/target", port);
+            b.fromF("knative-http:0.0.0.0:%d/target", port)
+                .setBody().simple("${header.x-in}-${header.ce-type}-${header.x-multi}");
+        });
+
+        context.start();
+
+        Exchange exchange = template.request("undertow:http://localhost:" + port + "/forward", e -> {
+            e.getMessage().setHeader(Exchange.HTTP_METHOD, "POST");
+            e.getMessage().setHeader("x-in", "in");
+            e.getMessage().setHeader("x-multi", Arrays.asList("1", "2"));
+            e.getMessage().setBody("test");
+        });
+
+        assertThat(exchange.getMessage().getBody(String.class)).isEqualTo("in-org.apache.camel.event-[1, 2]");
+        assertThat(seen).containsEntry("x-in", "in").containsKey("ce-type").doesNotContainKey("Host");
+        assertThat(seen.get("x-multi")).isEqualTo(Arrays.asList("1", "2"));
+
+        // the headers of the request have never been copied
+        assertThat(received.get()).isInstanceOfSatisfying(KnativeHttpHeaders.class, headers -> {
+            assertThat(headers.isMaterialized()).isFalse();
+        });
+    }
+
+    @Test
+    void testFastHeaderFilterStrategy() {
+        HeaderFilterStrategy reference = new KnativeHttpHeaderFilterStrategy();
+        HeaderFilterStrategy strategy = new KnativeHttpFastHeaderFilterStrategy();
+
+        String[] names = {
+            "Content-Type", "content-length", "HOST", "hosts", "hos", "Via", "Upgrade", "Transfer-Encoding",
+            "Camel", "CamelHttpPath", "camelHttpResponseCode", "CAMEL.foo", "Camel-Foo", "CamelFoo_Bar", "CamelFoo\u00e8",
+            "org.apache.camel", "ORG.APACHE.CAMEL.Foo", "org.apache.came", "org.apache.camel-foo", "orgXapacheXcamel",
+            "ce-type", "ce-source", "X-Camel", "camel|foo", "camel[0]", "\u212Aeep-alive", ""
+        };
+
+        for (String name : names) {
+            assertThat(strategy.applyFilterToCamelHeaders(name, "value", null))
+                .as(name)
+                .isEqualTo(reference.applyFilterToCamelHeaders(name, "value", null));
+            assertThat(strategy.applyFilterToExternalHeaders(name, "value", null))
+                .as(name)
+                .isEqualTo(reference.applyFilterToExternalHeaders(name, "value", null));
+        }
+
+        assertThat(strategy.applyFilterToCamelHeaders("x-foo", null, null)).isTrue();
+        assertThat(strategy.applyFilterToExternalHeaders("x-foo", null, null)).isTrue();
+    }
+
+    @Test
+    void testClientPool() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .delay(500).asyncDelayed()
+                .setBody().constant("ok");
+        });
+
+        context.start();
+
+        KnativeHttpEndpoint endpoint = context.getEndpoint(
+            String.format("knative-http:localhost:%d?maxPoolSize=1&keepAliveTimeout=30", port),
+            KnativeHttpEndpoint.class);
+
+        KnativeHttpProducer p1 = (KnativeHttpProducer) endpoint.createProducer();
+        KnativeHttpProducer p2 = (KnativeHttpProducer) endpoint.createProducer();
+
+        try {
+            p1.start();
+            p2.start();
+
+            CountDownLatch latch = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                Exchange exchange = endpoint.createExchange();
+                exchange.getMessage().setBody("test");
+
+                p1.process(exchange, doneSync -> latch.countDown());
+            }
+
+            // one request uses the only connection while the others are queued
+            assertThat(waitFor(() -> p1.getQueuedRequests() == 2 && p1.getActiveRequests() == 1)).isTrue();
+            assertThat(p2.getQueuedRequests()).isEqualTo(2);
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(waitFor(() -> p1.getActiveRequests() == 0)).isTrue();
+            assertThat(p1.getQueuedRequests()).isEqualTo(0);
+            assertThat(p1.getOpenConnections()).isEqualTo(1);
+            assertThat(p1.getIdleConnections()).isEqualTo(1);
+            assertThat(p1.getMaxPoolSize()).isEqualTo(1);
+            assertThat(p1.getAverageWaitTime()).isGreaterThan(0);
+        } finally {
+            p1.stop();
+            assertThat(endpoint.getComponent().getClientCount()).isEqualTo(1);
+            p2.stop();
+        }
+
+        // the client is dropped once no producer uses it
+        assertThat(endpoint.getComponent().getClientCount()).isEqualTo(0);
+    }
+
+    @Test
+    void testClientPoolKeepAlive() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .delay(200).asyncDelayed()
+                .setBody().constant("ok");
+        });
+
+        context.start();
+
+        KnativeHttpEndpoint endpoint = context.getEndpoint(
+            String.format("knative-http:localhost:%d?maxPoolSize=1&keepAliveTimeout=30", port),
+            KnativeHttpEndpoint.class);
+
+        KnativeHttpProducer producer = (KnativeHttpProducer) endpoint.createProducer();
+
+        try {
+            producer.start();
+
+            for (int i = 0; i < 3; i++) {
+                CountDownLatch latch = new CountDownLatch(1);
+                Exchange exchange = endpoint.createExchange();
+                exchange.getMessage().setBody("test");
+
+                producer.process(exchange, doneSync -> latch.countDown());
+
+                // the requests after the first one reuse the pooled connection
+                assertThat(waitFor(() -> producer.getActiveRequests() == 1 && producer.getQueuedRequests() == 0)).isTrue();
+                assertThat(producer.getIdleConnections()).isEqualTo(0);
+                assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+                assertThat(exchange.getMessage().getBody(String.class)).isEqualTo("ok");
+
+                assertThat(waitFor(() -> producer.getActiveRequests() == 0)).isTrue();
+                assertThat(producer.getQueuedRequests()).isEqualTo(0);
+                assertThat(producer.getOpenConnections()).isEqualTo(1);
+                assertThat(producer.getIdleConnections()).isEqualTo(1);
+            }
+
+            // the connection of the last requests was available right away
+            assertThat(producer.getAverageWaitTime()).isLessThan(200);
+        } finally {
+            producer.stop();
+        }
+    }
+
+    @Test
+    void testHedging() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .process(e -> e.getMessage().setHeader("count", counter.incrementAndGet()))
+                .choice()
+                    .when(b.header("count").isEqualTo(1))
+                        .delay(3000).asyncDelayed()
+                        .setBody().constant("slow")
+                    .endChoice()
+                    .otherwise()
+                        .setBody().constant("fast");
+        });
+
+        context.start();
+
+        KnativeHttpEndpoint endpoint = context.getEndpoint(
+            String.format("knative-http:localhost:%d?hedging=true&hedgeDelay=100&hedgeBudget=100", port),
+            KnativeHttpEndpoint.class);
+        KnativeHttpProducer producer = (KnativeHttpProducer) endpoint.createProducer();
+
+        try {
+            producer.start();
+
+            // the slow request is hedged and the response of the hedge is used
+            Exchange exchange = endpoint.createExchange(ExchangePattern.InOut);
+            exchange.getMessage().setBody("test");
+
+            long start = System.currentTimeMillis();
+            AsyncProcessorHelper.process(producer, exchange);
+
+            assertThat(exchange.isFailed()).isFalse();
+            assertThat(exchange.getMessage().getBody(String.class)).isEqualTo("fast");
+            assertThat(System.currentTimeMillis() - start).isLessThan(3000);
+            assertThat(counter).hasValue(2);
+            assertThat(producer.getHedgedRequests()).isEqualTo(1);
+
+            // the slow request is cancelled rather than waited for
+            assertThat(waitFor(() -> producer.getActiveRequests() == 0)).isTrue();
+            assertThat(System.currentTimeMillis() - start).isLessThan(3000);
+        } finally {
+            producer.stop();
+        }
+
+        // without budget, requests are never hedged
+        counter.set(0);
+
+        endpoint = context.getEndpoint(
+            String.format("knative-http:localhost:%d?hedging=true&hedgeDelay=100&hedgeBudget=0", port),
+            KnativeHttpEndpoint.class);
+        KnativeHttpProducer unbudgeted = (KnativeHttpProducer) endpoint.createProducer();
+
+        try {
+            unbudgeted.start();
+
+            Exchange exchange = endpoint.createExchange(ExchangePattern.InOut);
+            exchange.getMessage().setBody("test");
+
+            AsyncProcessorHelper.process(unbudgeted, exchange);
+
+            assertThat(exchange.getMessage().getBody(String.class)).isEqualTo("slow");
+            assertThat(counter).hasValue(1);
+            assertThat(unbudgeted.getHedgedRequests()).isEqualTo(0);
+        } finally {
+            unbudgeted.stop();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(KnativeHttpLoadBalancer.Strategy.class)
+    void testLoadBalancer(KnativeHttpLoadBalancer.Strategy strategy) throws Exception {
+        final int port2 = AvailablePortFinder.getNextAvailable();
+        final AtomicInteger counter1 = new AtomicInteger();
+        final AtomicInteger counter2 = new AtomicInteger();
+        final AtomicBoolean failing = new AtomicBoolean();
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .process(e -> counter1.incrementAndGet())
+                .setBody().constant("1");
+            b.fromF("knative-http:0.0.0.0:%d", port2)
+                .process(e -> {
+                    counter2.incrementAndGet();
+
+                    if (failing.get()) {
+                        e.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 503);
+                    }
+                })
+                .setBody().constant("2");
+
+            b.from("direct:start")
+                .toF("knative-http:localhost:%d?addresses=localhost:%d,localhost:%d&loadBalancer=%s&ejectionFailures=1", port, port, port2, strategy);
+        });
+
+        context.start();
+
+        // the requests are spread over the addresses
+        for (int i = 0; i < 20; i++) {
+            assertThat(template.requestBody("direct:start", "test", String.class)).isIn("1", "2");
+        }
+
+        assertThat(counter1.get()).isGreaterThan(0);
+        assertThat(counter2.get()).isGreaterThan(0);
+        assertThat(counter1.get() + counter2.get()).isEqualTo(20);
+
+        // a failing address is ejected
+        failing.set(true);
+        counter1.set(0);
+        counter2.set(0);
+
+        for (int i = 0; i < 20; i++) {
+            template.request("direct:start", e -> e.getMessage().setBody("test"));
+        }
+
+        assertThat(counter2.get()).isLessThanOrEqualTo(1);
+        assertThat(counter1.get() + counter2.get()).isEqualTo(20);
+    }
+
+    @Test
+    void testRetry() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .process(e -> {
+                    if (counter.incrementAndGet() < 3) {
+                        e.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 503);
+                    }
+                })
+                .setBody().simple("${body}-${header.CamelHttpResponseCode}");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d?retryMaxAttempts=3&retryInitialDelay=10", port);
+        });
+
+        context.start();
+
+        assertThat(template.requestBody("direct:start", "test", String.class)).isEqualTo("test-");
+        assertThat(counter).hasValue(3);
+    }
+
+    @Test
+    void testRetryAfterDeadline() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .process(e -> {
+                    counter.incrementAndGet();
+
+                    e.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 503);
+                    e.getMessage().setHeader("Retry-After", "0");
+                })
+                .setBody().constant("");
+            b.fromF("knative-http:0.0.0.0:%d/late", port)
+                .process(e -> {
+                    counter.incrementAndGet();
+
+                    e.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 503);
+                    e.getMessage().setHeader("Retry-After", "5");
+                })
+                .setBody().constant("");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d?retryMaxAttempts=5&retryInitialDelay=5000&retryDeadline=2000", port);
+            b.from("direct:late")
+                .toF("knative-http:0.0.0.0:%d/late?retryMaxAttempts=5&retryInitialDelay=10&retryDeadline=2000", port);
+        });
+
+        context.start();
+
+        // Retry-After takes precedence over the backoff delay
+        assertThat(template.request("direct:start", e -> e.getMessage().setBody("test")).isFailed()).isTrue();
+        assertThat(counter).hasValue(5);
+
+        // a Retry-After beyond the deadline stops the retries
+        counter.set(0);
+
+        long start = System.currentTimeMillis();
+        assertThat(template.request("direct:late", e -> e.getMessage().setBody("test")).isFailed()).isTrue();
+        assertThat(counter).hasValue(1);
+        assertThat(System.currentTimeMillis() - start).isLessThan(2000);
+    }
 
-import static org.assertj.core.api.Assertions.assertThat;
+    @Test
+    void testRetryAfterMaxDelay() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
 
-public class KnativeHttpTest {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .process(e -> {
+                    counter.incrementAndGet();
 
-    private CamelContext context;
-    private ProducerTemplate template;
-    private int port;
+                    e.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 503);
+                    e.getMessage().setHeader("Retry-After", "86400");
+                })
+                .setBody().constant("");
 
-    // **************************
-    //
-    // Setup
-    //
-    // **************************
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d?retryMaxAttempts=5&retryInitialDelay=10&retryMaxDelay=1000", port);
+        });
 
-    @BeforeEach
-    public void before() {
-        this.context = new DefaultCamelContext();
-        this.template = this.context.createProducerTemplate();
-        this.port = AvailablePortFinder.getNextAvailable();
-    }
+        context.start();
 
-    @AfterEach
-    public void after() {
-        if (this.context != null) {
-            this.context.stop();
-        }
-    }
+        // a Retry-After beyond the max delay stops the retries, even without a deadline
+        long start = System.currentTimeMillis();
+        assertThat(template.request("direct:start", e -> e.getMessage().setBody("test")).isFailed()).isTrue();
+        assertThat(counter).hasValue(1);
+        assertThat(System.currentTimeMillis() - start).isLessThan(1000);
 
-    // **************************
-    //
-    // Tests
-    //
-    // **************************
+        KnativeHttpRetryPolicy policy = new KnativeHttpRetryPolicy(5, "503", 10, 1000, 2, 0, 0);
+        String tomorrow = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusDays(1));
+
+        assertThat(policy.nextDelay(1, 0, "1")).isEqualTo(1000);
+        assertThat(policy.nextDelay(1, 0, "2")).isEqualTo(-1);
+        assertThat(policy.nextDelay(1, 0, tomorrow)).isEqualTo(-1);
+    }
 
     @Test
-    void testWithPaths() throws Exception {
+    void testCircuitBreaker() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger code = new AtomicInteger(500);
+
         RouteBuilder.addRoutes(context, b -> {
-            b.fromF("knative-http:0.0.0.0:%d/a/1", port)
-                .routeId("r1")
-                .setBody().simple("${routeId}")
-                .to("mock:r1");
-            b.fromF("knative-http:0.0.0.0:%d/a/2", port)
-                .routeId("r2")
-                .setBody().simple("${routeId}")
-                .to("mock:r2");
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .process(e -> {
+                    counter.incrementAndGet();
+
+                    e.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, code.get());
+                })
+                .setBody().constant("");
 
             b.from("direct:start")
-                .toD("undertow:http://localhost:" + port + "/a/${body}");
+                .toF("knative-http:0.0.0.0:%d?circuitBreaker=true&circuitBreakerWindowSize=2&circuitBreakerMinimumCalls=2&circuitBreakerOpenDuration=500&circuitBreakerHalfOpenCalls=1", port);
         });
 
-        context.getEndpoint("mock:r1", MockEndpoint.class).expectedMessageCount(1);
-        context.getEndpoint("mock:r2", MockEndpoint.class).expectedMessageCount(1);
         context.start();
 
-        assertThat(template.requestBody("direct:start", "1", String.class)).isEqualTo("r1");
-        assertThat(template.requestBody("direct:start", "2", String.class)).isEqualTo("r2");
+        // two failures open the breaker
+        assertThat(template.request("direct:start", e -> e.getMessage().setBody("test")).isFailed()).isTrue();
+        assertThat(template.request("direct:start", e -> e.getMessage().setBody("test")).isFailed()).isTrue();
+        assertThat(counter).hasValue(2);
 
-        MockEndpoint.assertIsSatisfied(context);
+        // requests fail fast while the breaker is open
+        Exchange rejected = template.request("direct:start", e -> e.getMessage().setBody("test"));
+        assertThat(rejected.getException()).hasMessageStartingWith("Circuit breaker open");
+        assertThat(counter).hasValue(2);
+
+        KnativeHttpEndpoint endpoint = context.getEndpoints().stream()
+            .filter(KnativeHttpEndpoint.class::isInstance)
+            .map(KnativeHttpEndpoint.class::cast)
+            .filter(KnativeHttpEndpoint::isCircuitBreaker)
+            .findFirst()
+            .orElseThrow(IllegalStateException::new);
+        KnativeHttpCircuitBreaker breaker = endpoint.getComponent().retainCircuitBreaker(endpoint);
+
+        assertThat(breaker.getState()).isEqualTo(KnativeHttpCircuitBreaker.State.OPEN);
+        assertThat(breaker.getRejected()).isEqualTo(1);
+
+        // a successful probe closes the breaker once the open duration has elapsed
+        code.set(200);
+        Thread.sleep(600);
+
+        assertThat(template.request("direct:start", e -> e.getMessage().setBody("test")).isFailed()).isFalse();
+        assertThat(template.request("direct:start", e -> e.getMessage().setBody("test")).isFailed()).isFalse();
+        assertThat(counter).hasValue(4);
+        assertThat(breaker.getState()).isEqualTo(KnativeHttpCircuitBreaker.State.CLOSED);
+
+        endpoint.getComponent().releaseCircuitBreaker(breaker);
+    }
+
+    @Test
+    void testCircuitBreakerProbes() throws Exception {
+        KnativeHttpCircuitBreaker breaker = new KnativeHttpCircuitBreaker(50, 100, 60000, 2, 2, 200, 1);
+
+        // a call started while the breaker is closed
+        long stale = breaker.tryAcquire();
+        assertThat(stale).isGreaterThanOrEqualTo(0);
+
+        breaker.onResult(breaker.tryAcquire(), 0, true);
+        breaker.onResult(breaker.tryAcquire(), 0, true);
+        assertThat(breaker.getState()).isEqualTo(KnativeHttpCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(-1);
+
+        Thread.sleep(300);
+
+        long probe = breaker.tryAcquire();
+        assertThat(probe).isGreaterThanOrEqualTo(0);
+        assertThat(breaker.getState()).isEqualTo(KnativeHttpCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(-1);
+
+        // the outcome of the stale call is not taken as the outcome of the probe
+        breaker.onResult(stale, 0, false);
+        assertThat(breaker.getState()).isEqualTo(KnativeHttpCircuitBreaker.State.HALF_OPEN);
+
+        // the probe never completes, the breaker opens again
+        Thread.sleep(300);
+
+        assertThat(breaker.tryAcquire()).isEqualTo(-1);
+        assertThat(breaker.getState()).isEqualTo(KnativeHttpCircuitBreaker.State.OPEN);
+
+        // and a late outcome of the probe is ignored
+        breaker.onResult(probe, 0, false);
+        assertThat(breaker.getState()).isEqualTo(KnativeHttpCircuitBreaker.State.OPEN);
+
+        // a new probe completing in time closes the breaker
+        Thread.sleep(300);
+
+        breaker.onResult(breaker.tryAcquire(), 0, false);
+        assertThat(breaker.getState()).isEqualTo(KnativeHttpCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void testCircuitBreakerSharing() throws Exception {
+        context.start();
+
+        KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+        KnativeHttpEndpoint e1 = context.getEndpoint(
+            String.format("knative-http:localhost:%d?circuitBreaker=true&circuitBreakerWindowSize=10&circuitBreakerMinimumCalls=5", port),
+            KnativeHttpEndpoint.class);
+        KnativeHttpEndpoint e2 = context.getEndpoint(
+            String.format("knative-http:localhost:%d?circuitBreaker=true&circuitBreakerWindowSize=10&circuitBreakerMinimumCalls=5&maxPoolSize=2", port),
+            KnativeHttpEndpoint.class);
+        KnativeHttpEndpoint e3 = context.getEndpoint(
+            String.format("knative-http:localhost:%d?circuitBreaker=true&circuitBreakerWindowSize=20&circuitBreakerMinimumCalls=5", port),
+            KnativeHttpEndpoint.class);
+
+        KnativeHttpProducer p1 = (KnativeHttpProducer) e1.createProducer();
+        KnativeHttpProducer p2 = (KnativeHttpProducer) e2.createProducer();
+        KnativeHttpProducer p3 = (KnativeHttpProducer) e3.createProducer();
+
+        p1.start();
+        p2.start();
+        p3.start();
+
+        // the breaker is shared by the producers with the same target and settings only
+        assertThat(component.getCircuitBreakerCount()).isEqualTo(2);
+
+        p1.stop();
+        assertThat(component.getCircuitBreakerCount()).isEqualTo(2);
+
+        // the breakers are dropped once no producer uses them
+        p2.stop();
+        p3.stop();
+        assertThat(component.getCircuitBreakerCount()).isEqualTo(0);
+
+        // settings that would make the breaker never trip are rejected
+        for (String options : Arrays.asList("circuitBreakerWindowSize=0", "circuitBreakerWindowSize=5&circuitBreakerMinimumCalls=10")) {
+            KnativeHttpEndpoint endpoint = context.getEndpoint(
+                String.format("knative-http:localhost:%d?circuitBreaker=true&%s", port, options),
+                KnativeHttpEndpoint.class);
+
+            assertThatThrownBy(() -> endpoint.createProducer().start())
+                .as(options)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
     }
 
     @Test
@@ -143,6 +1192,26 @@ public class KnativeHttpTest {
         });
     }
 
+    @Test
+    void testWithFiltersAndMissingHeader() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d?filter.MyHeader=h.*", port)
+                .routeId("r1")
+                .setBody().simple("${routeId}");
+
+            b.from("direct:start")
+                .toF("undertow:http://localhost:%d", port);
+        });
+
+        context.start();
+
+        assertThat(template.request("direct:start", e -> e.getMessage().setBody("h1"))).satisfies(e -> {
+            assertThat(e.isFailed()).isTrue();
+            assertThat(e.getException()).isInstanceOf(HttpOperationFailedException.class);
+            assertThat(e.getException(HttpOperationFailedException.class).getStatusCode()).isEqualTo(404);
+        });
+    }
+
     @Test
     void testRemoveConsumer() throws Exception {
         RouteBuilder.addRoutes(context, b -> {
@@ -232,6 +1301,327 @@ public class KnativeHttpTest {
         mock2.assertIsSatisfied();
     }
 
+    @Test
+    void testStreaming() throws Exception {
+        final byte[] payload = new byte[4 * 1024 * 1024];
+        Arrays.fill(payload, (byte) 'a');
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d?streaming=true", port)
+                .routeId("r1")
+                .process(e -> {
+                    assertThat(e.getMessage().getBody()).isInstanceOf(InputStream.class);
+
+                    long count = 0;
+                    try (InputStream is = e.getMessage().getBody(InputStream.class)) {
+                        while (is.read() != -1) {
+                            count++;
+                        }
+                    }
+
+                    e.getMessage().setBody(Long.toString(count));
+                });
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d", port);
+        });
+
+        context.start();
+
+        assertThat(template.requestBody("direct:start", payload, String.class)).isEqualTo(Integer.toString(payload.length));
+    }
+
+    @Test
+    void testStreamingStalledClient() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d?streaming=true&streamingReadTimeout=500", port)
+                .convertBodyTo(String.class);
+        });
+
+        context.start();
+
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(10000);
+
+            // the client announces a body it never completes
+            OutputStream out = socket.getOutputStream();
+            out.write((
+                "POST / HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Length: 100\r\n"
+                + "\r\n"
+                + "only ten b").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            long start = System.currentTimeMillis();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+
+            // the read of the body times out and the exchange fails
+            assertThat(in.readLine()).startsWith("HTTP/1.1 500");
+            assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+        }
+    }
+
+    @Test
+    void testUnconvertibleReply() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .process(e -> e.getMessage().setBody(new Object() {
+                    // no converter to byte[] exists for this type
+                }));
+        });
+
+        context.start();
+
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(10000);
+
+            OutputStream out = socket.getOutputStream();
+            out.write((
+                "POST / HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Length: 0\r\n"
+                + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+
+            // the reply cannot be written but the client still gets a response
+            assertThat(in.readLine()).startsWith("HTTP/1.1 500");
+        }
+    }
+
+    @Test
+    void testStreamingProducer(@TempDir Path dir) throws Exception {
+        final byte[] payload = new byte[4 * 1024 * 1024];
+        Arrays.fill(payload, (byte) 'a');
+
+        final Path file = Files.write(dir.resolve("payload"), payload);
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d?streaming=true", port)
+                .process(e -> {
+                    long count = 0;
+                    try (InputStream is = e.getMessage().getBody(InputStream.class)) {
+                        while (is.read() != -1) {
+                            count++;
+                        }
+                    }
+
+                    e.getMessage().setBody(
+                        count + "-" + e.getMessage().getHeader("Content-Length") + "-" + e.getMessage().getHeader("Transfer-Encoding")
+                    );
+                });
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d", port);
+        });
+
+        context.start();
+
+        // the length of a file is known
+        assertThat(template.requestBody("direct:start", file.toFile(), String.class))
+            .isEqualTo(payload.length + "-" + payload.length + "-null");
+
+        // an input stream is sent using chunked transfer encoding
+        assertThat(template.requestBody("direct:start", new ByteArrayInputStream(payload), String.class))
+            .isEqualTo(payload.length + "-null-chunked");
+    }
+
+    @Test
+    void testForwardBuffer() throws Exception {
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d/a", port)
+                .routeId("forward")
+                .toF("knative-http:0.0.0.0:%d/b", port);
+            b.fromF("knative-http:0.0.0.0:%d/b", port)
+                .routeId("endpoint")
+                .process(e -> {
+                    assertThat(e.getMessage().getBody()).isInstanceOf(Buffer.class);
+                })
+                .to("mock:endpoint");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d/a", port);
+        });
+
+        MockEndpoint mock = context.getEndpoint("mock:endpoint", MockEndpoint.class);
+        mock.expectedBodiesReceived("forwarded");
+        mock.expectedMessageCount(1);
+
+        context.start();
+
+        assertThat(template.requestBody("direct:start", "forwarded", String.class)).isEqualTo("forwarded");
+
+        mock.assertIsSatisfied();
+    }
+
+    @Test
+    void testWorkerPoolRejection() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+        component.setConsumerWorkerPoolSize(1);
+        component.setConsumerWorkerQueueSize(0);
+        component.setConsumerRetryAfter(5);
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .routeId("r1")
+                .process(e -> {
+                    started.countDown();
+                    release.await(30, TimeUnit.SECONDS);
+                })
+                .setBody().simple("${routeId}");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d", port);
+        });
+
+        context.start();
+
+        Future<String> pending = template.asyncRequestBody("direct:start", "1", String.class);
+        assertThat(started.await(30, TimeUnit.SECONDS)).isTrue();
+
+        Exchange exchange = template.request("direct:start", e -> e.getMessage().setBody("2"));
+        assertThat(exchange.isFailed()).isTrue();
+        assertThat(exchange.getException()).hasMessageContaining("with statusCode: 503");
+        assertThat(exchange.getMessage().getHeader("Retry-After", String.class)).isEqualTo("5");
+
+        release.countDown();
+
+        assertThat(pending.get(30, TimeUnit.SECONDS)).isEqualTo("r1");
+    }
+
+    @Test
+    void testWorkerPoolRejectionBeforeBody() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+        component.setConsumerWorkerPoolSize(1);
+        component.setConsumerWorkerQueueSize(0);
+        component.setConsumerRetryAfter(5);
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d", port)
+                .routeId("r1")
+                .process(e -> {
+                    started.countDown();
+                    release.await(30, TimeUnit.SECONDS);
+                })
+                .setBody().simple("${routeId}");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d", port);
+        });
+
+        context.start();
+
+        Future<String> pending = template.asyncRequestBody("direct:start", "1", String.class);
+        assertThat(started.await(30, TimeUnit.SECONDS)).isTrue();
+
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(10000);
+
+            // the client announces a body it does not send
+            OutputStream out = socket.getOutputStream();
+            out.write((
+                "POST / HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Length: 1000000\r\n"
+                + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+
+            // the request is rejected without waiting for the body
+            assertThat(in.readLine()).startsWith("HTTP/1.1 503");
+
+            // and the connection is closed rather than drained
+            while (in.readLine() != null) {
+                // discard the rest of the response
+            }
+        }
+
+        release.countDown();
+
+        assertThat(pending.get(30, TimeUnit.SECONDS)).isEqualTo("r1");
+    }
+
+    @Test
+    void testMaxConcurrentRequests() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        RouteBuilder.addRoutes(context, b -> {
+            b.fromF("knative-http:0.0.0.0:%d?maxConcurrentRequests=1", port)
+                .routeId("r1")
+                .process(e -> {
+                    started.countDown();
+                    release.await(30, TimeUnit.SECONDS);
+                })
+                .setBody().simple("${routeId}");
+
+            b.from("direct:start")
+                .toF("knative-http:0.0.0.0:%d", port);
+        });
+
+        context.getComponent("knative-http", KnativeHttpComponent.class).setConsumerWorkerPoolSize(2);
+        context.start();
+
+        Future<String> pending = template.asyncRequestBody("direct:start", "1", String.class);
+        assertThat(started.await(30, TimeUnit.SECONDS)).isTrue();
+
+        Exchange exchange = template.request("direct:start", e -> e.getMessage().setBody("2"));
+        assertThat(exchange.isFailed()).isTrue();
+        assertThat(exchange.getException()).hasMessageContaining("with statusCode: 503");
+
+        release.countDown();
+
+        assertThat(pending.get(30, TimeUnit.SECONDS)).isEqualTo("r1");
+        assertThat(context.getRoute("r1").getConsumer()).isInstanceOfSatisfying(KnativeHttpConsumer.class, c -> {
+            assertThat(c.getConcurrencyLimit()).isEqualTo(1);
+            assertThat(c.getInflightRequests()).isEqualTo(0);
+            assertThat(c.getRejectedRequests()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void testAdaptiveConcurrencyLimiter() {
+        KnativeHttpConcurrencyLimiter limiter = KnativeHttpConcurrencyLimiter.adaptive(10, 20);
+
+        // the limit grows while it is used and latency is stable
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        for (int i = 0; i < 10; i++) {
+            limiter.release(1_000_000, false);
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+
+        // and it is cut when latency increases or requests fail
+        int limit = limiter.getLimit();
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(10_000_000, false);
+        assertThat(limiter.getLimit()).isLessThan(limit);
+
+        limit = limiter.getLimit();
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(1_000_000, true);
+        assertThat(limiter.getLimit()).isLessThan(limit);
+
+        // a shed request is not a sample
+        limit = limiter.getLimit();
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.cancel();
+        assertThat(limiter.getLimit()).isEqualTo(limit);
+        assertThat(limiter.getInflight()).isEqualTo(0);
+    }
+
     @Test
     void testInvokeNotExistingEndpoint() throws Exception {
         RouteBuilder.addRoutes(context, b -> {
@@ -269,5 +1659,30 @@ public class KnativeHttpTest {
         assertThat(exchange.getException()).hasMessageStartingWith("HTTP operation failed invoking");
         assertThat(exchange.getException()).hasMessageContaining("with statusCode: 500, statusMessage: Internal Server Error");
     }
-}
 
+    // **************************
+    //
+    // Helpers
+    //
+    // **************************
+
+    private static boolean isListening(int port) {
+        try (Socket socket = new Socket("localhost", port)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+
+            Thread.sleep(50);
+        }
+
+        return false;
+    }
+}
@@ -32,10 +32,12 @@ public final class Knative {
     public static final String FILTER_HEADER_VALUE = "filter.header.value";
     public static final String CONTENT_TYPE = "content.type";
     public static final String MIME_STRUCTURED_CONTENT_MODE = "application/cloudevents+json";
+    public static final String MIME_BATCH_CONTENT_MODE = "application/cloudevents-batch+json";
 
     public static final String SERVICE_META_HOST = "service.host";
     public static final String SERVICE_META_ZONE = "service.zone";
     public static final String SERVICE_META_PATH = "service.path";
+    public static final String SERVICE_META_ADDRESSES = "service.addresses";
 
     private Knative() {
     }
@@ -49,4 +51,23 @@ public final class Knative {
         http,
         https
     }
+
+    /**
+     * How the data of an event received in the structured content mode is mapped to
+     * the body of the exchange.
+     */
+    public enum DataMode {
+        /**
+         * Json objects and arrays are turned into maps and lists.
+         */
+        object,
+        /**
+         * Json objects and arrays are kept as the bytes they were received as.
+         */
+        bytes,
+        /**
+         * Json objects and arrays are turned into a {@link com.fasterxml.jackson.databind.JsonNode}.
+         */
+        tree
+    }
 }
@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.component.knative.ce.CloudEventsProcessors;
+import org.apache.camel.component.knative.ce.StructuredDecoder;
+import org.apache.camel.support.AsyncProcessorConverterHelper;
+import org.apache.camel.support.AsyncProcessorSupport;
+import org.apache.camel.support.ExchangeHelper;
+import org.apache.camel.support.service.ServiceHelper;
+import org.apache.camel.util.IOHelper;
+
+/**
+ * Processes the requests received by a knative consumer: single events go through
+ * the cloud events processor and the route while the events of a request having
+ * the {@code application/cloudevents-batch+json} content type are either routed one
+ * by one or delivered as a list.
+ *
+ * The batch is parsed as a stream, when the events are routed one by one the next
+ * event is only read once the previous one has been processed, unless an executor
+ * is configured, so the memory used does not depend on the size of the batch.
+ *
+ * The response to a batch routed one by one lists the outcome of each event, the
+ * status code is 200 if all the events succeeded, 500 if all failed and 207 otherwise.
+ */
+public class KnativeBatchProcessor extends AsyncProcessorSupport {
+    private final CloudEventsProcessors ce;
+    private final AsyncProcessor pipeline;
+    private final AsyncProcessor processor;
+    private final boolean asList;
+    private final ExecutorService executorService;
+    private final Knative.DataMode dataMode;
+
+    public KnativeBatchProcessor(KnativeEndpoint endpoint, CloudEventsProcessors ce, Processor pipeline, Processor processor) {
+        this.ce = ce;
+        this.pipeline = AsyncProcessorConverterHelper.convert(pipeline);
+        this.processor = AsyncProcessorConverterHelper.convert(processor);
+        this.asList = endpoint.getConfiguration().isBatchAsList();
+        this.executorService = endpoint.getConfiguration().getBatchExecutorService();
+        this.dataMode = endpoint.getConfiguration().getStructuredDataMode();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        if (!KnativeSupport.hasBatchContent(exchange)) {
+            return pipeline.process(exchange, callback);
+        }
+
+        final Batch batch;
+
+        try {
+            batch = new Batch(exchange, callback);
+
+            if (asList) {
+                final List<Map<String, Object>> events = new ArrayList<>();
+                for (Map<String, Object> event = batch.read(); event != null; event = batch.read()) {
+                    events.add(event);
+                }
+
+                batch.close();
+
+                exchange.getIn().removeHeader(Exchange.CONTENT_TYPE);
+                exchange.getIn().setBody(events);
+
+                return processor.process(exchange, callback);
+            }
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+
+            return true;
+        }
+
+        if (executorService != null) {
+            batch.dispatch();
+        } else {
+            batch.next();
+        }
+
+        return false;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        ServiceHelper.startService(pipeline);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        ServiceHelper.stopService(pipeline);
+    }
+
+    private final class Batch {
+        private final Exchange exchange;
+        private final AsyncCallback callback;
+        private final InputStream in;
+        private final JsonParser parser;
+        private final List<Map<String, Object>> outcomes;
+        private final AtomicInteger pending;
+
+        Batch(Exchange exchange, AsyncCallback callback) throws IOException {
+            this.exchange = exchange;
+            this.callback = callback;
+            this.in = exchange.getIn().getBody(InputStream.class);
+            this.parser = Knative.MAPPER.getFactory().createParser(in);
+            this.outcomes = new ArrayList<>();
+            this.pending = new AtomicInteger(1);
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("A batch of events must be a json array");
+            }
+        }
+
+        /**
+         * @return the next event of the batch or null if the batch is over
+         */
+        Map<String, Object> read() throws IOException {
+            final JsonToken token = parser.nextToken();
+
+            if (token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected token in the batch of events: " + token);
+            }
+
+            return StructuredDecoder.decode(parser, null, dataMode);
+        }
+
+        void close() {
+            IOHelper.close(parser, in);
+        }
+
+        /**
+         * Routes the events one after the other.
+         */
+        void next() {
+            for (;;) {
+                final Exchange event;
+                final int index;
+
+                try {
+                    event = toExchange(read());
+                } catch (Exception e) {
+                    fail(e);
+                    return;
+                }
+
+                if (event == null) {
+                    complete();
+                    return;
+                }
+
+                synchronized (outcomes) {
+                    index = outcomes.size();
+                    outcomes.add(null);
+                }
+
+                final boolean sync = processor.process(event, doneSync -> {
+                    onEvent(index, event);
+
+                    if (!doneSync) {
+                        next();
+                    }
+                });
+
+                if (!sync) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Routes the events in parallel using the configured executor.
+         */
+        void dispatch() {
+            try {
+                for (Exchange event = toExchange(read()); event != null; event = toExchange(read())) {
+                    final Exchange current = event;
+                    final int index;
+
+                    synchronized (outcomes) {
+                        index = outcomes.size();
+                        outcomes.add(null);
+                    }
+
+                    pending.incrementAndGet();
+
+                    try {
+                        executorService.execute(() -> processor.process(current, doneSync -> {
+                            onEvent(index, current);
+                            done();
+                        }));
+                    } catch (RejectedExecutionException e) {
+                        current.setException(e);
+                        onEvent(index, current);
+                        done();
+                    }
+                }
+            } catch (Exception e) {
+                exchange.setException(e);
+            }
+
+            done();
+        }
+
+        private Exchange toExchange(Map<String, Object> event) {
+            if (event == null) {
+                return null;
+            }
+
+            final Exchange answer = ExchangeHelper.createCorrelatedCopy(exchange, false);
+            final Message message = answer.getIn();
+
+            message.removeHeader(Exchange.CONTENT_TYPE);
+            message.setBody(null);
+
+            ce.fromStructured(event, message);
+
+            return answer;
+        }
+
+        private void onEvent(int index, Exchange event) {
+            final Map<String, Object> outcome = new LinkedHashMap<>();
+            outcome.put("id", event.getIn().getHeader(ce == CloudEventsProcessors.v01 ? "CE-EventID" : "ce-id"));
+
+            if (event.isFailed()) {
+                outcome.put("status", 500);
+                outcome.put("error", event.getException() != null ? event.getException().getMessage() : null);
+            } else {
+                outcome.put("status", event.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, 200, int.class));
+            }
+
+            synchronized (outcomes) {
+                outcomes.set(index, outcome);
+            }
+        }
+
+        private void done() {
+            if (pending.decrementAndGet() == 0) {
+                if (exchange.getException() != null) {
+                    close();
+                    callback.done(false);
+                } else {
+                    complete();
+                }
+            }
+        }
+
+        private void fail(Exception e) {
+            close();
+
+            exchange.setException(e);
+            callback.done(false);
+        }
+
+        private void complete() {
+            close();
+
+            int succeeded = 0;
+            for (Map<String, Object> outcome : outcomes) {
+                final int status = (Integer) outcome.get("status");
+                if (status >= 200 && status < 300) {
+                    succeeded++;
+                }
+            }
+
+            final Message message = exchange.getMessage();
+
+            try {
+                message.setBody(Knative.MAPPER.writeValueAsBytes(outcomes));
+                message.setHeader(Exchange.CONTENT_TYPE, "application/json");
+                message.setHeader(Exchange.HTTP_RESPONSE_CODE, succeeded == outcomes.size() ? 200 : succeeded == 0 ? 500 : 207);
+            } catch (Exception e) {
+                exchange.setException(e);
+            }
+
+            callback.done(false);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelException;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.Producer;
+import org.apache.camel.component.knative.ce.CloudEventsProcessors;
+import org.apache.camel.support.AsyncProcessorConverterHelper;
+import org.apache.camel.support.DefaultAsyncProducer;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.support.service.ServiceHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A producer aggregating the events in batches sent as a single request using the
+ * {@code application/cloudevents-batch+json} content type.
+ *
+ * A batch is sent once it holds {@link KnativeConfiguration#getBatchSize()} events or
+ * when its oldest event has been waiting for {@link KnativeConfiguration#getBatchTimeout()}
+ * millis, then each exchange of the batch completes with the outcome of the request.
+ *
+ * The events are encoded in the structured content mode so only the cloud events
+ * attributes, the content type and the body of the exchanges are sent.
+ *
+ * When the receiver replies with a 207 Multi-Status listing the outcome of each
+ * event, as done by the knative consumers accepting batches, the exchanges of the
+ * events that did not succeed fail with their own status code.
+ */
+public class KnativeBatchProducer extends DefaultAsyncProducer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KnativeBatchProducer.class);
+
+    private final CloudEventsProcessors ce;
+    private final Producer producer;
+    private final AsyncProcessor sender;
+    private final Processor[] processors;
+    private final int batchSize;
+    private final long batchTimeout;
+
+    private List<Entry> batch;
+    private ScheduledFuture<?> timer;
+    private ScheduledExecutorService scheduler;
+    private int inflight;
+
+    public KnativeBatchProducer(KnativeEndpoint endpoint, CloudEventsProcessors ce, Producer producer, Processor... processors) {
+        super(endpoint);
+
+        this.ce = ce;
+        this.producer = producer;
+        this.sender = AsyncProcessorConverterHelper.convert(producer);
+        this.processors = processors;
+        this.batchSize = endpoint.getConfiguration().getBatchSize();
+        this.batchTimeout = endpoint.getConfiguration().getBatchTimeout();
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public KnativeEndpoint getEndpoint() {
+        return (KnativeEndpoint)super.getEndpoint();
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        final Map<String, Object> event;
+
+        try {
+            for (Processor processor : processors) {
+                processor.process(exchange);
+            }
+
+            event = ce.toStructured(exchange.getMessage());
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+
+            return true;
+        }
+
+        List<Entry> full = null;
+
+        synchronized (this) {
+            if (scheduler == null) {
+                exchange.setException(new RejectedExecutionException("The batch producer is not started: " + getEndpoint()));
+                callback.done(true);
+
+                return true;
+            }
+
+            batch.add(new Entry(exchange, callback, event));
+
+            if (batch.size() >= batchSize) {
+                full = swap();
+            } else if (batch.size() == 1) {
+                final List<Entry> current = batch;
+
+                timer = scheduler.schedule(() -> onTimeout(current), batchTimeout, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (full != null) {
+            send(full);
+        }
+
+        return false;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        scheduler = getEndpoint().getCamelContext().getExecutorServiceManager().newSingleThreadScheduledExecutor(this, "KnativeBatchProducer");
+
+        ServiceHelper.startService(producer);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        final List<Entry> pending;
+        final ScheduledExecutorService executor;
+
+        // no more events are accepted once the scheduler is gone
+        synchronized (this) {
+            pending = swap();
+            executor = scheduler;
+            scheduler = null;
+        }
+
+        // the timer may be flushing a batch already, shutting the scheduler down waits
+        // for it so that batch is accounted for below
+        if (executor != null) {
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownGraceful(executor);
+        }
+
+        // the pending events are sent before the underlying producer is stopped
+        if (!pending.isEmpty()) {
+            send(pending);
+        }
+
+        awaitInflight(getEndpoint().getCamelContext().getShutdownStrategy().getTimeUnit().toMillis(
+            getEndpoint().getCamelContext().getShutdownStrategy().getTimeout()));
+
+        ServiceHelper.stopService(producer);
+
+        super.doStop();
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    /**
+     * Replaces the current batch with a new one, must be invoked while holding the lock.
+     */
+    private List<Entry> swap() {
+        final List<Entry> answer = batch;
+
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+
+        batch = new ArrayList<>(batchSize);
+
+        return answer;
+    }
+
+    private void onTimeout(List<Entry> expected) {
+        final List<Entry> expired;
+
+        synchronized (this) {
+            // the batch may have been sent meanwhile because it was full
+            if (batch != expected || batch.isEmpty()) {
+                return;
+            }
+
+            expired = swap();
+        }
+
+        send(expired);
+    }
+
+    private void send(List<Entry> entries) {
+        synchronized (this) {
+            inflight++;
+        }
+
+        final List<Map<String, Object>> events = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            events.add(entry.event);
+        }
+
+        final Exchange request = new DefaultExchange(getEndpoint().getCamelContext(), ExchangePattern.InOut);
+
+        try {
+            request.getIn().setBody(Knative.MAPPER.writeValueAsBytes(events));
+            request.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+        } catch (Exception e) {
+            request.setException(e);
+            complete(entries, request);
+
+            return;
+        }
+
+        sender.process(request, doneSync -> complete(entries, request));
+    }
+
+    private void complete(List<Entry> entries, Exchange request) {
+        final Exception exception = request.getException();
+        final Message response = request.getMessage();
+        final Object code = response.getHeader(Exchange.HTTP_RESPONSE_CODE);
+        final List<Map<String, Object>> outcomes = exception == null ? outcomes(response, entries.size()) : null;
+
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry entry = entries.get(i);
+
+            if (exception != null) {
+                entry.exchange.setException(exception);
+            } else if (outcomes != null) {
+                onOutcome(entry.exchange, outcomes.get(i));
+            } else {
+                entry.exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, code);
+            }
+
+            entry.callback.done(false);
+        }
+
+        synchronized (this) {
+            if (--inflight == 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reads the outcome of each event from a 207 Multi-Status response, which lists
+     * them in the order the events have been sent.
+     *
+     * @return the outcomes or null if the response does not list them
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> outcomes(Message response, int size) {
+        final Integer code = response.getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class);
+        if (code == null || code != 207) {
+            return null;
+        }
+
+        try (InputStream is = response.getBody(InputStream.class)) {
+            final List<Map<String, Object>> answer = is != null ? Knative.MAPPER.readValue(is, List.class) : null;
+
+            if (answer != null && answer.size() == size) {
+                return answer;
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Unable to read the outcome of the events from the response", e);
+        }
+
+        LOGGER.warn("The events of the batch are not listed in the 207 response, the batch is considered as successful");
+
+        return null;
+    }
+
+    private static void onOutcome(Exchange exchange, Map<String, Object> outcome) {
+        final Object value = outcome != null ? outcome.get("status") : null;
+        final int status = value instanceof Number ? ((Number) value).intValue() : 500;
+
+        exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, status);
+
+        if (status < 200 || status >= 300) {
+            exchange.setException(new CamelException(String.format(
+                "Event %s of the batch failed with statusCode: %d, error: %s",
+                outcome != null ? outcome.get("id") : null,
+                status,
+                outcome != null ? outcome.get("error") : null)));
+        }
+    }
+
+    /**
+     * Waits for the batches being sent to complete, at most the given millis.
+     */
+    private synchronized void awaitInflight(long timeout) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeout;
+
+        for (long remaining = timeout; inflight > 0 && remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+            wait(remaining);
+        }
+
+        if (inflight > 0) {
+            LOGGER.warn("Stopping with {} batches still being sent after waiting {} millis", inflight, timeout);
+        }
+    }
+
+    private static final class Entry {
+        final Exchange exchange;
+        final AsyncCallback callback;
+        final Map<String, Object> event;
+
+        Entry(Exchange exchange, AsyncCallback callback, Map<String, Object> event) {
+            this.exchange = exchange;
+            this.callback = callback;
+            this.event = event;
+        }
+    }
+}
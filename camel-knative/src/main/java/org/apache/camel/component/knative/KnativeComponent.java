@@ -111,6 +111,54 @@ public class KnativeComponent extends DefaultComponent {
         configuration.setTransportOptions(transportOptions);
     }
 
+    public int getBatchSize() {
+        return configuration.getBatchSize();
+    }
+
+    /**
+     * The max number of events sent as a single batch request, 0 to send each event
+     * on its own.
+     */
+    public void setBatchSize(int batchSize) {
+        configuration.setBatchSize(batchSize);
+    }
+
+    public long getBatchTimeout() {
+        return configuration.getBatchTimeout();
+    }
+
+    /**
+     * The max time in millis an event waits for its batch to be full before the
+     * batch is sent.
+     */
+    public void setBatchTimeout(long batchTimeout) {
+        configuration.setBatchTimeout(batchTimeout);
+    }
+
+    public boolean isAcceptBatches() {
+        return configuration.isAcceptBatches();
+    }
+
+    /**
+     * Whether the consumers accept batches of events, i.e. requests having the
+     * application/cloudevents-batch+json content type.
+     */
+    public void setAcceptBatches(boolean acceptBatches) {
+        configuration.setAcceptBatches(acceptBatches);
+    }
+
+    public Knative.DataMode getStructuredDataMode() {
+        return configuration.getStructuredDataMode();
+    }
+
+    /**
+     * How the data of the events received in the structured content mode is mapped
+     * to the body: as maps and lists, as the raw json bytes or as a json tree.
+     */
+    public void setStructuredDataMode(Knative.DataMode structuredDataMode) {
+        configuration.setStructuredDataMode(structuredDataMode);
+    }
+
     // ************************
     //
     //
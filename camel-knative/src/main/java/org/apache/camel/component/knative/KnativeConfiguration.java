@@ -17,6 +17,7 @@
 package org.apache.camel.component.knative;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.camel.RuntimeCamelException;
 import org.apache.camel.spi.UriParam;
@@ -37,6 +38,24 @@ public class KnativeConfiguration implements Cloneable {
     @UriParam(prefix = "transport.")
     private Map<String, Object> transportOptions;
 
+    @UriParam(label = "producer")
+    private int batchSize;
+
+    @UriParam(label = "producer", defaultValue = "100")
+    private long batchTimeout = 100;
+
+    @UriParam(label = "consumer")
+    private boolean acceptBatches;
+
+    @UriParam(label = "consumer")
+    private boolean batchAsList;
+
+    @UriParam(label = "consumer")
+    private ExecutorService batchExecutorService;
+
+    @UriParam(label = "consumer", defaultValue = "object")
+    private Knative.DataMode structuredDataMode = Knative.DataMode.object;
+
     public KnativeConfiguration() {
     }
 
@@ -102,6 +121,82 @@ public class KnativeConfiguration implements Cloneable {
         this.transportOptions = transportOptions;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * The max number of events sent as a single batch request, 0 to send each event
+     * on its own.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchTimeout() {
+        return batchTimeout;
+    }
+
+    /**
+     * The max time in millis an event waits for its batch to be full before the
+     * batch is sent.
+     */
+    public void setBatchTimeout(long batchTimeout) {
+        this.batchTimeout = batchTimeout;
+    }
+
+    public boolean isAcceptBatches() {
+        return acceptBatches;
+    }
+
+    /**
+     * Whether the consumer accepts batches of events, i.e. requests having the
+     * application/cloudevents-batch+json content type. Otherwise such a request is
+     * processed as a single exchange like any other request.
+     */
+    public void setAcceptBatches(boolean acceptBatches) {
+        this.acceptBatches = acceptBatches;
+    }
+
+    public boolean isBatchAsList() {
+        return batchAsList;
+    }
+
+    /**
+     * Whether the events of a batch are delivered as a single exchange having the
+     * list of the events as body, instead of one exchange per event. Only used when
+     * acceptBatches is enabled.
+     */
+    public void setBatchAsList(boolean batchAsList) {
+        this.batchAsList = batchAsList;
+    }
+
+    public ExecutorService getBatchExecutorService() {
+        return batchExecutorService;
+    }
+
+    /**
+     * The executor used to process the events of a batch in parallel, by default
+     * the events are processed one after the other. Only used when acceptBatches is
+     * enabled.
+     */
+    public void setBatchExecutorService(ExecutorService batchExecutorService) {
+        this.batchExecutorService = batchExecutorService;
+    }
+
+    public Knative.DataMode getStructuredDataMode() {
+        return structuredDataMode;
+    }
+
+    /**
+     * How the data of the events received in the structured content mode is mapped
+     * to the body: as maps and lists, as the raw json bytes or as a json tree. The raw
+     * bytes avoid materializing data that is only forwarded.
+     */
+    public void setStructuredDataMode(Knative.DataMode structuredDataMode) {
+        this.structuredDataMode = structuredDataMode;
+    }
+
     // ************************
     //
     // Cloneable
@@ -97,6 +97,10 @@ public class KnativeEndpoint extends DefaultEndpoint implements DelegateEndpoint
         final Processor ceProcessor = CloudEventsProcessors.forSpecversion(version).producerProcessor(this);
         final Processor ceConverter = new KnativeConversionProcessor(configuration.isJsonSerializationEnabled());
 
+        if (configuration.getBatchSize() > 0) {
+            return new KnativeBatchProducer(this, CloudEventsProcessors.forSpecversion(version), endpoint.createProducer(), ceProcessor, ceConverter);
+        }
+
         return new KnativeProducer(this, ceProcessor, ceConverter, endpoint.createProducer());
     }
 
@@ -105,7 +109,10 @@ public class KnativeEndpoint extends DefaultEndpoint implements DelegateEndpoint
         final String version = configuration.getCloudEventsSpecVersion();
         final Processor ceProcessor = CloudEventsProcessors.forSpecversion(version).consumerProcessor(this);
         final Processor pipeline = Pipeline.newInstance(getCamelContext(), ceProcessor, processor);
-        final Consumer consumer = endpoint.createConsumer(pipeline);
+        final Consumer consumer = endpoint.createConsumer(
+            configuration.isAcceptBatches()
+                ? new KnativeBatchProcessor(this, CloudEventsProcessors.forSpecversion(version), pipeline, processor)
+                : pipeline);
 
         configureConsumer(consumer);
 
@@ -185,10 +192,15 @@ public class KnativeEndpoint extends DefaultEndpoint implements DelegateEndpoint
 
             final String filterKey = definition.getMetadata().get(Knative.FILTER_HEADER_NAME);
             final String filterVal = definition.getMetadata().get(Knative.FILTER_HEADER_VALUE);
+            final String addresses = definition.getMetadata().get(Knative.SERVICE_META_ADDRESSES);
             final Map<String, Object> parameters = new HashMap<>();
 
             parameters.putAll(transportOptions);
 
+            if (ObjectHelper.isNotEmpty(addresses)) {
+                parameters.put("addresses", addresses);
+            }
+
             if (ObjectHelper.isNotEmpty(filterKey) && ObjectHelper.isNotEmpty(filterVal)) {
                 parameters.put("filter." + filterKey, filterVal);
             }
@@ -156,6 +156,7 @@ public class KnativeEnvironment {
             //              "name": "",
             //              "host": "",
             //              "port": "",
+            //              "addresses": [ "host:port" ],
             //              "metadata": {
             //                  "service.path": "",
             //                  "knative.event.type": "",
@@ -202,6 +203,17 @@ public class KnativeEnvironment {
     // ************************
 
     public static final class KnativeServiceDefinition extends DefaultServiceDefinition {
+        public KnativeServiceDefinition(
+            Knative.Type type,
+            Knative.Protocol protocol,
+            String name,
+            String host,
+            int port,
+            Map<String, String> metadata) {
+
+            this(type, protocol, name, host, port, null, metadata);
+        }
+
         @JsonCreator
         public KnativeServiceDefinition(
             @JsonProperty(value = "type", required = true) Knative.Type type,
@@ -209,6 +221,7 @@ public class KnativeEnvironment {
             @JsonProperty(value = "name", required = true) String name,
             @JsonProperty(value = "host", required = true) String host,
             @JsonProperty(value = "port", required = true) int port,
+            @JsonProperty(value = "addresses", required = false) List<String> addresses,
             @JsonProperty(value = "metadata", required = false) Map<String, String> metadata) {
 
             super(
@@ -219,7 +232,10 @@ public class KnativeEnvironment {
                     metadata,
                     KnativeSupport.mapOf(
                         Knative.KNATIVE_TYPE, type.name(),
-                        Knative.KNATIVE_PROTOCOL, protocol.name())
+                        Knative.KNATIVE_PROTOCOL, protocol.name()),
+                    addresses != null && !addresses.isEmpty()
+                        ? Collections.singletonMap(Knative.SERVICE_META_ADDRESSES, String.join(",", addresses))
+                        : Collections.emptyMap()
                 )
             );
         }
@@ -239,5 +255,18 @@ public class KnativeEnvironment {
         public String getEventType() {
             return getMetadata().get(Knative.KNATIVE_EVENT_TYPE);
         }
+
+        /**
+         * The addresses, in the form host:port, the requests are spread over instead of
+         * being sent to the host and port of the service.
+         */
+        public List<String> getAddresses() {
+            final String addresses = getMetadata().get(Knative.SERVICE_META_ADDRESSES);
+            if (addresses == null || addresses.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            return Arrays.asList(addresses.split(","));
+        }
     }
 }
@@ -16,11 +16,18 @@
  */
 package org.apache.camel.component.knative;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.RawValue;
 import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.support.MessageHelper;
+import org.apache.camel.util.ObjectHelper;
 
 public final class KnativeSupport {
     private KnativeSupport() {
@@ -30,6 +37,70 @@ public final class KnativeSupport {
         return Objects.equals(exchange.getIn().getHeader(Exchange.CONTENT_TYPE), Knative.MIME_STRUCTURED_CONTENT_MODE);
     }
 
+    public static boolean hasBatchContent(Exchange exchange) {
+        final String contentType = exchange.getIn().getHeader(Exchange.CONTENT_TYPE, String.class);
+        return contentType != null && contentType.startsWith(Knative.MIME_BATCH_CONTENT_MODE);
+    }
+
+    /**
+     * Gets the data of an event in the structured content mode: a valid json body is
+     * embedded as it is, text and numbers are converted to a string and any other body
+     * is converted to bytes, which are base64 encoded.
+     */
+    public static Object structuredData(Message message) {
+        final Object body = message.getBody();
+
+        if (body == null) {
+            return null;
+        }
+        if (isJson(MessageHelper.getContentType(message))) {
+            final String json = toText(message, body);
+
+            // a body that is not json is sent as a string rather than breaking the event
+            return isValidJson(json) ? new RawValue(json) : json;
+        }
+        if (body instanceof CharSequence || body instanceof Number || body instanceof Boolean || body instanceof Character) {
+            return body.toString();
+        }
+
+        final byte[] bytes = body instanceof byte[] ? (byte[]) body : message.getBody(byte[].class);
+
+        return bytes != null ? bytes : message.getBody(String.class);
+    }
+
+    private static String toText(Message message, Object body) {
+        if (body instanceof String) {
+            return (String) body;
+        }
+
+        // json is utf-8 whatever the default charset
+        final byte[] bytes = body instanceof byte[] ? (byte[]) body : message.getBody(byte[].class);
+
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : message.getBody(String.class);
+    }
+
+    private static boolean isValidJson(String json) {
+        if (json == null) {
+            return false;
+        }
+
+        try (JsonParser parser = Knative.MAPPER.getFactory().createParser(json)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+
+            parser.skipChildren();
+
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isJson(String contentType) {
+        return ObjectHelper.isNotEmpty(contentType) && (contentType.startsWith("application/json") || contentType.contains("+json"));
+    }
+
     @SafeVarargs
     public static <K, V> Map<K, V> mergeMaps(Map<K, V> map, Map<K, V>... maps) {
         Map<K, V> answer = new HashMap<>();
@@ -16,23 +16,36 @@
  */
 package org.apache.camel.component.knative.ce;
 
+import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
+import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.apache.camel.component.knative.KnativeEndpoint;
 
 public enum CloudEventsProcessors {
-    v01("0.1", V01.PRODUCER, V01.CONSUMER),
-    v02("0.2", V02.PRODUCER, V02.CONSUMER);
+    v01("0.1", V01.PRODUCER, V01.CONSUMER, V01.TO_STRUCTURED, V01.FROM_STRUCTURED),
+    v02("0.2", V02.PRODUCER, V02.CONSUMER, V02.TO_STRUCTURED, V02.FROM_STRUCTURED);
 
     private final String version;
     private final Function<KnativeEndpoint, Processor> producer;
     private final Function<KnativeEndpoint, Processor> consumer;
+    private final Function<Message, Map<String, Object>> toStructured;
+    private final BiConsumer<Map<String, Object>, Message> fromStructured;
+
+    CloudEventsProcessors(
+            String version,
+            Function<KnativeEndpoint, Processor> producer,
+            Function<KnativeEndpoint, Processor> consumer,
+            Function<Message, Map<String, Object>> toStructured,
+            BiConsumer<Map<String, Object>, Message> fromStructured) {
 
-    CloudEventsProcessors(String version, Function<KnativeEndpoint, Processor> producer, Function<KnativeEndpoint, Processor> consumer) {
         this.version = version;
         this.producer = producer;
         this.consumer = consumer;
+        this.toStructured = toStructured;
+        this.fromStructured = fromStructured;
     }
 
     public String getVersion() {
@@ -47,6 +60,22 @@ public enum CloudEventsProcessors {
         return this.consumer.apply(endpoint);
     }
 
+    /**
+     * Converts a message processed by the {@link #producerProcessor(KnativeEndpoint)}
+     * to an event in the structured content mode.
+     */
+    public Map<String, Object> toStructured(Message message) {
+        return this.toStructured.apply(message);
+    }
+
+    /**
+     * Maps the attributes and the data of an event in the structured content mode to
+     * the given message.
+     */
+    public void fromStructured(Map<String, Object> event, Message message) {
+        this.fromStructured.accept(event, message);
+    }
+
     // **************************
     //
     // Helpers
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.util.Date;
+import java.util.Map;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.component.knative.Knative;
+import org.apache.camel.component.knative.KnativeEndpoint;
+import org.apache.camel.component.knative.KnativeEnvironment;
+
+/**
+ * Stamps the cloud events attributes on the exchanges sent by a producer.
+ *
+ * The attributes that only depend on the endpoint, the spec version, the type, the
+ * source and the content type, are resolved once when the processor is created so
+ * an exchange only costs its id and time, the latter being computed only when the
+ * exchange does not carry one already.
+ */
+final class ProducerProcessor implements Processor {
+    private final String versionHeader;
+    private final String typeHeader;
+    private final String idHeader;
+    private final String timeHeader;
+    private final String sourceHeader;
+
+    private final String version;
+    private final String type;
+    private final String source;
+    private final String contentType;
+
+    ProducerProcessor(
+            KnativeEndpoint endpoint,
+            String version,
+            String versionHeader,
+            String typeHeader,
+            String idHeader,
+            String timeHeader,
+            String sourceHeader) {
+
+        final KnativeEnvironment.KnativeServiceDefinition service = endpoint.getService();
+        final String eventType = service.getMetadata().get(Knative.KNATIVE_EVENT_TYPE);
+
+        this.versionHeader = versionHeader;
+        this.typeHeader = typeHeader;
+        this.idHeader = idHeader;
+        this.timeHeader = timeHeader;
+        this.sourceHeader = sourceHeader;
+
+        this.version = version;
+        this.type = eventType != null ? eventType : endpoint.getConfiguration().getCloudEventsType();
+        this.source = endpoint.getEndpointUri();
+        this.contentType = service.getMetadata().get(Knative.CONTENT_TYPE);
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        final Map<String, Object> headers = exchange.getIn().getHeaders();
+
+        headers.putIfAbsent(versionHeader, version);
+        headers.putIfAbsent(typeHeader, type);
+        headers.putIfAbsent(idHeader, exchange.getExchangeId());
+        headers.putIfAbsent(sourceHeader, source);
+
+        if (!headers.containsKey(timeHeader)) {
+            final Date created = exchange.getCreated();
+            headers.put(timeHeader, TimestampEncoder.UTC.encode(created != null ? created.getTime() : System.currentTimeMillis()));
+        }
+        if (contentType != null) {
+            headers.putIfAbsent(Exchange.CONTENT_TYPE, contentType);
+        }
+
+        // Always remove host so it's always computed from the URL and not inherited from the exchange
+        headers.remove("Host");
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+import org.apache.camel.Message;
+import org.apache.camel.component.knative.Knative;
+import org.apache.camel.util.IOHelper;
+
+/**
+ * Reads events in the structured content mode with a streaming parser: the
+ * attributes are read as they come while the data is mapped according to the
+ * configured {@link Knative.DataMode}.
+ *
+ * With {@link Knative.DataMode#bytes} the json objects and arrays of the data are
+ * skipped by the parser and sliced out of the input, so no tree of maps and lists is
+ * built for data the route only forwards.
+ */
+public final class StructuredDecoder {
+    private StructuredDecoder() {
+    }
+
+    /**
+     * Reads the event held by the body of the given message.
+     */
+    public static Map<String, Object> decode(Message message, Knative.DataMode mode) throws IOException {
+        if (message.getBody() == null) {
+            throw new IOException("An event in the structured content mode must not be empty");
+        }
+
+        if (mode == Knative.DataMode.bytes) {
+            // the body of the knative-http consumers, read in place
+            if (message.getBody() instanceof Buffer) {
+                return decode(((Buffer) message.getBody()).getByteBuf(), mode);
+            }
+
+            // the whole event is needed to slice the data out of it
+            final byte[] source = message.getBody(byte[].class);
+            if (source == null) {
+                throw new IOException("Unable to read the event from a body of type " + message.getBody().getClass().getName());
+            }
+
+            try (JsonParser parser = Knative.MAPPER.getFactory().createParser(source)) {
+                parser.nextToken();
+                return decode(parser, source, mode);
+            }
+        }
+
+        final InputStream in = message.getBody(InputStream.class);
+        if (in == null) {
+            throw new IOException("Unable to read the event from a body of type " + message.getBody().getClass().getName());
+        }
+
+        try (JsonParser parser = Knative.MAPPER.getFactory().createParser(in)) {
+            parser.nextToken();
+            return decode(parser, null, mode);
+        } finally {
+            IOHelper.close(in);
+        }
+    }
+
+    /**
+     * Reads the event the parser is positioned on.
+     *
+     * @param source the bytes read by the parser, if known, so the raw data is sliced
+     *               out of them instead of being copied token by token
+     */
+    public static Map<String, Object> decode(JsonParser parser, byte[] source, Knative.DataMode mode) throws IOException {
+        return decode(parser, source, 0, mode);
+    }
+
+    private static Map<String, Object> decode(ByteBuf buffer, Knative.DataMode mode) throws IOException {
+        if (buffer.hasArray()) {
+            final byte[] source = buffer.array();
+            final int offset = buffer.arrayOffset() + buffer.readerIndex();
+
+            try (JsonParser parser = Knative.MAPPER.getFactory().createParser(source, offset, buffer.readableBytes())) {
+                parser.nextToken();
+                return decode(parser, source, offset, mode);
+            }
+        }
+
+        // a direct buffer has no array to slice the data out of, a duplicate is read
+        // so the body can still be read afterwards
+        final InputStream in = new ByteBufInputStream(buffer.duplicate());
+
+        try (JsonParser parser = Knative.MAPPER.getFactory().createParser(in)) {
+            parser.nextToken();
+            return decode(parser, null, 0, mode);
+        }
+    }
+
+    /**
+     * @param offset the index of the first byte read by the parser in the source, the
+     *               locations of the parser are relative to it
+     */
+    private static Map<String, Object> decode(JsonParser parser, byte[] source, int offset, Knative.DataMode mode) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("An event in the structured content mode must be a json object");
+        }
+
+        final Map<String, Object> answer = new LinkedHashMap<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            if ("data".equals(name)) {
+                answer.put(name, readData(parser, token, source, offset, mode));
+            } else {
+                answer.put(name, Knative.MAPPER.readValue(parser, Object.class));
+            }
+        }
+
+        return answer;
+    }
+
+    private static Object readData(JsonParser parser, JsonToken token, byte[] source, int offset, Knative.DataMode mode) throws IOException {
+        // scalars, i.e. text data, are mapped the same way whatever the mode
+        if (token.isScalarValue() || mode == Knative.DataMode.object) {
+            return Knative.MAPPER.readValue(parser, Object.class);
+        }
+        if (mode == Knative.DataMode.tree) {
+            return Knative.MAPPER.readTree(parser);
+        }
+
+        final long start = source != null ? parser.getTokenLocation().getByteOffset() : -1;
+        if (start >= 0) {
+            parser.skipChildren();
+
+            //
+            // The slice is copied on purpose: the data usually is a small part of
+            // the event and a view over the source would keep the whole event,
+            // and the buffer it has been converted from, alive for as long as
+            // the exchange. The data also has to be a plain byte[] for the
+            // routes and the type converters to work with it.
+            //
+            return Arrays.copyOfRange(source, offset + (int) start, offset + (int) parser.getCurrentLocation().getByteOffset());
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Knative.MAPPER.getFactory().createGenerator(out)) {
+            generator.copyCurrentStructure(parser);
+        }
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Encodes timestamps as RFC 3339 UTC strings with a millisecond precision, i.e.
+ * {@code 2019-10-18T10:15:30.123Z}.
+ *
+ * The last encoded timestamp is memoized, as the events sent within the same
+ * millisecond share it, and the date and time part of the last second is kept so
+ * a new millisecond only costs three digits. The cached values are immutable so the
+ * encoder can be shared by any number of threads.
+ */
+public final class TimestampEncoder {
+    public static final TimestampEncoder UTC = new TimestampEncoder();
+
+    // yyyy-MM-ddTHH:mm:ss.SSSZ
+    private static final int LENGTH = 24;
+    private static final int MILLIS_OFFSET = 20;
+
+    private volatile Second second;
+    private volatile Millisecond millisecond;
+
+    private TimestampEncoder() {
+        this.second = new Second(Long.MIN_VALUE, new char[LENGTH]);
+        this.millisecond = new Millisecond(Long.MIN_VALUE, null);
+    }
+
+    public String encode(long epochMillis) {
+        final Millisecond cachedMillisecond = this.millisecond;
+        if (cachedMillisecond.epochMillis == epochMillis) {
+            return cachedMillisecond.value;
+        }
+
+        final long epochSecond = Math.floorDiv(epochMillis, 1000);
+
+        Second cachedSecond = this.second;
+        if (cachedSecond.epochSecond != epochSecond) {
+            cachedSecond = new Second(epochSecond, encodeSecond(epochSecond));
+            this.second = cachedSecond;
+        }
+
+        final char[] chars = cachedSecond.chars.clone();
+        final int millis = (int) Math.floorMod(epochMillis, 1000);
+        chars[MILLIS_OFFSET] = (char) ('0' + millis / 100);
+        chars[MILLIS_OFFSET + 1] = (char) ('0' + millis / 10 % 10);
+        chars[MILLIS_OFFSET + 2] = (char) ('0' + millis % 10);
+
+        final String answer = new String(chars);
+        this.millisecond = new Millisecond(epochMillis, answer);
+
+        return answer;
+    }
+
+    private static char[] encodeSecond(long epochSecond) {
+        final LocalDateTime time = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        final char[] chars = new char[LENGTH];
+
+        digits(chars, 0, time.getYear(), 4);
+        chars[4] = '-';
+        digits(chars, 5, time.getMonthValue(), 2);
+        chars[7] = '-';
+        digits(chars, 8, time.getDayOfMonth(), 2);
+        chars[10] = 'T';
+        digits(chars, 11, time.getHour(), 2);
+        chars[13] = ':';
+        digits(chars, 14, time.getMinute(), 2);
+        chars[16] = ':';
+        digits(chars, 17, time.getSecond(), 2);
+        chars[19] = '.';
+        chars[23] = 'Z';
+
+        return chars;
+    }
+
+    private static void digits(char[] chars, int offset, int value, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static final class Second {
+        final long epochSecond;
+        final char[] chars;
+
+        Second(long epochSecond, char[] chars) {
+            this.epochSecond = epochSecond;
+            this.chars = chars;
+        }
+    }
+
+    private static final class Millisecond {
+        final long epochMillis;
+        final String value;
+
+        Millisecond(long epochMillis, String value) {
+            this.epochMillis = epochMillis;
+            this.value = value;
+        }
+    }
+}
@@ -16,19 +16,15 @@
  */
 package org.apache.camel.component.knative.ce;
 
-import java.io.InputStream;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
-import org.apache.camel.component.knative.Knative;
 import org.apache.camel.component.knative.KnativeEndpoint;
-import org.apache.camel.component.knative.KnativeEnvironment;
 import org.apache.camel.component.knative.KnativeSupport;
 import org.apache.commons.lang3.StringUtils;
 
@@ -36,32 +32,9 @@ import static org.apache.camel.util.ObjectHelper.ifNotEmpty;
 
 final class V02 {
     public static final Function<KnativeEndpoint, Processor> PRODUCER = (KnativeEndpoint endpoint) -> {
-        KnativeEnvironment.KnativeServiceDefinition service = endpoint.getService();
-        String uri = endpoint.getEndpointUri();
-
-        return exchange -> {
-            String eventType = service.getMetadata().get(Knative.KNATIVE_EVENT_TYPE);
-            if (eventType == null) {
-                eventType = endpoint.getConfiguration().getCloudEventsType();
-            }
-            final String contentType = service.getMetadata().get(Knative.CONTENT_TYPE);
-            final ZonedDateTime created = exchange.getCreated().toInstant().atZone(ZoneId.systemDefault());
-            final String eventTime = DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(created);
-            final Map<String, Object> headers = exchange.getIn().getHeaders();
-
-            headers.putIfAbsent("ce-specversion", "0.2");
-            headers.putIfAbsent("ce-type", eventType);
-            headers.putIfAbsent("ce-id", exchange.getExchangeId());
-            headers.putIfAbsent("ce-time", eventTime);
-            headers.putIfAbsent("ce-source", uri);
-            headers.putIfAbsent(Exchange.CONTENT_TYPE, contentType);
-
-            // Always remove host so it's always computed from the URL and not inherited from the exchange
-            headers.remove("Host");
-        };
+        return new ProducerProcessor(endpoint, "0.2", "ce-specversion", "ce-type", "ce-id", "ce-time", "ce-source");
     };
 
-    @SuppressWarnings("unchecked")
     public static final Function<KnativeEndpoint, Processor> CONSUMER = (KnativeEndpoint endpoint) -> {
         return exchange -> {
             if (!KnativeSupport.hasStructuredContent(exchange)) {
@@ -78,27 +51,51 @@ final class V02 {
                 return;
             }
 
-            try (InputStream is = exchange.getIn().getBody(InputStream.class)) {
-                final Message message = exchange.getIn();
-                final Map<String, Object> ce = Knative.MAPPER.readValue(is, Map.class);
+            final Map<String, Object> event = StructuredDecoder.decode(exchange.getIn(), endpoint.getConfiguration().getStructuredDataMode());
 
-                ifNotEmpty(ce.remove("contentType"), val -> message.setHeader(Exchange.CONTENT_TYPE, val));
-                ifNotEmpty(ce.remove("data"), val -> message.setBody(val));
+            V02.FROM_STRUCTURED.accept(event, exchange.getIn());
+        };
+    };
 
-                //
-                // Map extensions to standard camel headers
-                //
-                ifNotEmpty(ce.remove("extensions"), val -> {
-                    if (val instanceof Map) {
-                        ((Map<String, Object>) val).forEach(message::setHeader);
-                    }
-                });
-
-                ce.forEach((key, val) -> {
-                    message.setHeader("ce-" + StringUtils.lowerCase(key), val);
-                });
+    @SuppressWarnings("unchecked")
+    public static final BiConsumer<Map<String, Object>, Message> FROM_STRUCTURED = (Map<String, Object> ce, Message message) -> {
+        ifNotEmpty(ce.remove("contentType"), val -> message.setHeader(Exchange.CONTENT_TYPE, val));
+
+        //
+        // The 0.2 spec names the attribute contenttype, it used to end up in
+        // the ce-contenttype header and the Content-Type of the message was the
+        // structured content mode one.
+        //
+        ifNotEmpty(ce.remove("contenttype"), val -> message.setHeader(Exchange.CONTENT_TYPE, val));
+        ifNotEmpty(ce.remove("data"), val -> message.setBody(val));
+
+        //
+        // Map extensions to standard camel headers
+        //
+        ifNotEmpty(ce.remove("extensions"), val -> {
+            if (val instanceof Map) {
+                ((Map<String, Object>) val).forEach(message::setHeader);
             }
-        };
+        });
+
+        ce.forEach((key, val) -> {
+            message.setHeader("ce-" + StringUtils.lowerCase(key), val);
+        });
+    };
+
+    public static final Function<Message, Map<String, Object>> TO_STRUCTURED = (Message message) -> {
+        final Map<String, Object> ce = new LinkedHashMap<>();
+
+        message.getHeaders().forEach((key, val) -> {
+            if (val != null && StringUtils.startsWithIgnoreCase(key, "ce-")) {
+                ce.put(StringUtils.lowerCase(key.substring(3)), val);
+            }
+        });
+
+        ifNotEmpty(message.getHeader(Exchange.CONTENT_TYPE), val -> ce.put("contenttype", val));
+        ifNotEmpty(KnativeSupport.structuredData(message), val -> ce.put("data", val));
+
+        return ce;
     };
 
     private V02() {
@@ -16,22 +16,50 @@
  */
 package org.apache.camel.component.knative;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.apache.camel.AsyncProducer;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.component.knative.ce.CloudEventsProcessors;
+import org.apache.camel.component.knative.ce.StructuredDecoder;
 import org.apache.camel.component.mock.MockEndpoint;
 import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
 import org.apache.camel.test.AvailablePortFinder;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
 public class CloudEventsV02Test {
 
     private CamelContext context;
@@ -115,6 +143,56 @@ public class CloudEventsV02Test {
         mock.assertIsSatisfied();
     }
 
+    @Test
+    void testProducerProcessor() throws Exception {
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                AvailablePortFinder.getNextAvailable(),
+                KnativeSupport.mapOf(
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.custom-event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(env);
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        Processor processor = CloudEventsProcessors.v02.producerProcessor(endpoint);
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.setProperty(Exchange.CREATED_TIMESTAMP, new Date());
+        exchange.getIn().setHeader("Host", "localhost");
+        processor.process(exchange);
+
+        assertThat(exchange.getIn().getHeaders())
+            .containsEntry("ce-specversion", "0.2")
+            .containsEntry("ce-type", "org.apache.camel.custom-event")
+            .containsEntry("ce-source", "knative://endpoint/myEndpoint")
+            .containsEntry("ce-id", exchange.getExchangeId())
+            .containsEntry(Exchange.CONTENT_TYPE, "text/plain")
+            .doesNotContainKey("Host");
+
+        // the time is encoded as a RFC 3339 UTC timestamp
+        assertThat(exchange.getIn().getHeader("ce-time", String.class)).matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}Z");
+        assertThat(Instant.parse(exchange.getIn().getHeader("ce-time", String.class))).isEqualTo(exchange.getCreated().toInstant());
+
+        // the attributes set by the route are kept
+        Exchange custom = new DefaultExchange(context);
+        custom.getIn().setHeader("ce-type", "my-type");
+        custom.getIn().setHeader("ce-time", "2019-10-18T10:15:30.000Z");
+        processor.process(custom);
+
+        assertThat(custom.getIn().getHeaders())
+            .containsEntry("ce-type", "my-type")
+            .containsEntry("ce-time", "2019-10-18T10:15:30.000Z");
+    }
+
     @Test
     void testProduceDefaultEventType() throws Exception {
         final int port = AvailablePortFinder.getNextAvailable();
@@ -202,6 +280,431 @@ public class CloudEventsV02Test {
         mock2.assertIsSatisfied();
     }
 
+    @Test
+    void testStructuredData() throws Exception {
+        final byte[] binary = {(byte) 0xff, (byte) 0xfe, 0x00, 0x41};
+
+        // binary bodies are base64 encoded whatever their type
+        for (Object body : Arrays.asList(binary, new ByteArrayInputStream(binary), ByteBuffer.wrap(binary))) {
+            Message message = new DefaultExchange(context).getIn();
+            message.setBody(body);
+
+            assertThat(KnativeSupport.structuredData(message)).as(body.getClass().getName()).isEqualTo(binary);
+        }
+
+        Message text = new DefaultExchange(context).getIn();
+        text.setBody(42);
+
+        assertThat(KnativeSupport.structuredData(text)).isEqualTo("42");
+
+        // json is embedded as it is
+        Message json = new DefaultExchange(context).getIn();
+        json.setHeader(Exchange.CONTENT_TYPE, "application/json");
+        json.setBody(new ByteArrayInputStream("{\"a\": [1, 2]}".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(Knative.MAPPER.writeValueAsString(CloudEventsProcessors.v02.toStructured(json)))
+            .isEqualTo("{\"contenttype\":\"application/json\",\"data\":{\"a\": [1, 2]}}");
+
+        // a body that is not valid json is sent as a string
+        for (String body : Arrays.asList("{\"a\": ", "not json", "{} {}", " ")) {
+            Message invalid = new DefaultExchange(context).getIn();
+            invalid.setHeader(Exchange.CONTENT_TYPE, "application/json");
+            invalid.setBody(body);
+
+            assertThat(KnativeSupport.structuredData(invalid)).as(body).isEqualTo(body);
+            assertThat(Knative.MAPPER.readTree(Knative.MAPPER.writeValueAsString(CloudEventsProcessors.v02.toStructured(invalid)))).isNotNull();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProduceBatch() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.custom-event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:source")
+                    .to("knative:endpoint/myEndpoint?batchSize=3&batchTimeout=200");
+
+                fromF("undertow:http://localhost:%d/a/path", port)
+                    .convertBodyTo(String.class)
+                    .to("mock:ce");
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+        mock.expectedMessageCount(2);
+
+        ProducerTemplate template = context.createProducerTemplate();
+        List<Future<Exchange>> results = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            final String body = "test-" + i;
+            results.add(template.asyncSend("direct:source", e -> e.getIn().setBody(body)));
+        }
+        for (Future<Exchange> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).isFailed()).isFalse();
+            assertThat(result.get().getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+        }
+
+        mock.assertIsSatisfied();
+
+        // a full batch is sent right away, the remaining events once the timeout expires
+        List<Map<String, Object>> full = Knative.MAPPER.readValue(mock.getExchanges().get(0).getIn().getBody(String.class), List.class);
+        List<Map<String, Object>> partial = Knative.MAPPER.readValue(mock.getExchanges().get(1).getIn().getBody(String.class), List.class);
+
+        assertThat(full).hasSize(3);
+        assertThat(partial).hasSize(2);
+        assertThat(full.get(0))
+            .containsEntry("specversion", CloudEventsProcessors.v02.getVersion())
+            .containsEntry("type", "org.apache.camel.custom-event")
+            .containsEntry("source", "knative://endpoint/myEndpoint?batchSize=3&batchTimeout=200")
+            .containsEntry("contenttype", "text/plain")
+            .containsKeys("id", "time");
+
+        List<Object> data = new ArrayList<>();
+        full.forEach(e -> data.add(e.get("data")));
+        partial.forEach(e -> data.add(e.get("data")));
+
+        assertThat(data).containsExactlyInAnyOrder("test-0", "test-1", "test-2", "test-3", "test-4");
+    }
+
+    @Test
+    void testProduceBatchOnStop() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.custom-event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("undertow:http://localhost:%d/a/path", port)
+                    .delay(500)
+                    .convertBodyTo(String.class)
+                    .to("mock:ce");
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint?batchSize=10&batchTimeout=60000", KnativeEndpoint.class);
+        AsyncProducer producer = endpoint.createAsyncProducer();
+        List<Exchange> exchanges = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+
+        producer.start();
+
+        for (int i = 0; i < 2; i++) {
+            Exchange exchange = endpoint.createExchange();
+            exchange.getIn().setBody("test-" + i);
+            exchanges.add(exchange);
+
+            producer.process(exchange, doneSync -> latch.countDown());
+        }
+
+        // the pending batch is sent, and its response received, before the producer stops
+        producer.stop();
+
+        assertThat(latch.getCount()).isEqualTo(0);
+        assertThat(exchanges).allSatisfy(exchange -> {
+            assertThat(exchange.isFailed()).isFalse();
+            assertThat(exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+        });
+
+        mock.assertIsSatisfied();
+
+        // a stopped producer fails the exchange rather than queuing it
+        Exchange late = endpoint.createExchange();
+        late.getIn().setBody("late");
+
+        assertThat(producer.process(late, doneSync -> { })).isTrue();
+        assertThat(late.getException()).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void testProduceBatchWithFailedEvents() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.custom-event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint?acceptBatches=true")
+                    .convertBodyTo(String.class)
+                    .filter(body().startsWith("fail"))
+                        .throwException(new IllegalStateException("failed"))
+                    .end()
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .to("knative:endpoint/myEndpoint?batchSize=4&batchTimeout=60000");
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedBodiesReceivedInAnyOrder("ok-0", "ok-2");
+
+        ProducerTemplate template = context.createProducerTemplate();
+        List<Future<Exchange>> results = new ArrayList<>();
+
+        for (String body : Arrays.asList("ok-0", "fail-1", "ok-2", "fail-3")) {
+            results.add(template.asyncSend("direct:source", e -> e.getIn().setBody(body)));
+        }
+
+        mock.assertIsSatisfied();
+
+        // the receiver replies with a 207 and each exchange gets the outcome of its event
+        for (int i = 0; i < results.size(); i++) {
+            Exchange exchange = results.get(i).get(5, TimeUnit.SECONDS);
+
+            if (i % 2 == 0) {
+                assertThat(exchange.isFailed()).isFalse();
+                assertThat(exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+            } else {
+                assertThat(exchange.isFailed()).isTrue();
+                assertThat(exchange.getException()).hasMessageContaining("statusCode: 500").hasMessageContaining("failed");
+                assertThat(exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(500);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConsumeBatch() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "sequential",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/sequential"
+                )),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "parallel",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/parallel"
+                )),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "single",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/single"
+                ))
+        ));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        context.getRegistry().bind("executor", executor);
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/sequential?acceptBatches=true")
+                    .filter(body().isEqualTo("fail"))
+                        .throwException(new IllegalStateException("failed"))
+                    .end()
+                    .to("mock:sequential");
+                from("knative:endpoint/parallel?acceptBatches=true&batchExecutorService=#executor")
+                    .filter(body().isEqualTo("fail"))
+                        .throwException(new IllegalStateException("failed"))
+                    .end()
+                    .to("mock:parallel");
+                from("knative:endpoint/single")
+                    .convertBodyTo(String.class)
+                    .to("mock:single");
+
+                from("direct:source")
+                    .toD("undertow:http://localhost:" + port + "/${header.target}?throwExceptionOnFailure=false")
+                    .convertBodyTo(String.class);
+            }
+        });
+
+        context.start();
+
+        final String batch = new ObjectMapper().writeValueAsString(Arrays.asList(
+            KnativeSupport.mapOf("specversion", "0.2", "type", "org.apache.camel.event", "id", "e1", "source", "/somewhere", "data", "a"),
+            KnativeSupport.mapOf("specversion", "0.2", "type", "org.apache.camel.event", "id", "e2", "source", "/somewhere", "data", "fail"),
+            KnativeSupport.mapOf("specversion", "0.2", "type", "org.apache.camel.event", "id", "e3", "source", "/somewhere", "contenttype", "text/plain", "data", "b")
+        ));
+
+        try {
+            for (String target : Arrays.asList("sequential", "parallel")) {
+                MockEndpoint mock = context.getEndpoint("mock:" + target, MockEndpoint.class);
+                mock.expectedBodiesReceivedInAnyOrder("a", "b");
+                mock.expectedMessagesMatches(e -> e.getIn().getHeaders().containsKey("ce-id"));
+                mock.expectedMessagesMatches(e -> "org.apache.camel.event".equals(e.getIn().getHeader("ce-type")));
+
+                Exchange result = context.createProducerTemplate().request(
+                    "direct:source",
+                    e -> {
+                        e.getIn().setHeader("target", target);
+                        e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+                        e.getIn().setBody(batch);
+                    }
+                );
+
+                mock.assertIsSatisfied();
+
+                // the response aggregates the outcome of the events
+                List<Map<String, Object>> outcomes = Knative.MAPPER.readValue(result.getMessage().getBody(String.class), List.class);
+
+                assertThat(result.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(207);
+                assertThat(outcomes).extracting(o -> o.get("id")).containsExactly("e1", "e2", "e3");
+                assertThat(outcomes).extracting(o -> o.get("status")).containsExactly(200, 500, 200);
+                assertThat(mock.getExchanges().stream().filter(e -> "b".equals(e.getIn().getBody())).findFirst())
+                    .hasValueSatisfying(e -> assertThat(e.getIn().getHeader(Exchange.CONTENT_TYPE)).isEqualTo("text/plain"));
+            }
+
+            // a consumer not accepting batches gets the batch as a single exchange
+            MockEndpoint single = context.getEndpoint("mock:single", MockEndpoint.class);
+            single.expectedBodiesReceived(batch);
+            single.expectedHeaderReceived(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+
+            context.createProducerTemplate().request(
+                "direct:source",
+                e -> {
+                    e.getIn().setHeader("target", "single");
+                    e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+                    e.getIn().setBody(batch);
+                }
+            );
+
+            single.assertIsSatisfied();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConsumeBatchAsList() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint?acceptBatches=true&batchAsList=true")
+                    .to("mock:ce")
+                    .setBody().constant("done");
+
+                from("direct:source")
+                    .toF("undertow:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+                e.getIn().setBody(new ObjectMapper().writeValueAsString(Arrays.asList(
+                    KnativeSupport.mapOf("specversion", "0.2", "id", "e1", "data", "a"),
+                    KnativeSupport.mapOf("specversion", "0.2", "id", "e2", "data", "b")
+                )));
+            }
+        );
+
+        mock.assertIsSatisfied();
+
+        List<Map<String, Object>> events = mock.getExchanges().get(0).getIn().getBody(List.class);
+        assertThat(events).extracting(e -> e.get("id")).containsExactly("e1", "e2");
+        assertThat(events).extracting(e -> e.get("data")).containsExactly("a", "b");
+    }
+
     @Test
     void testConsumeStructuredContent() throws Exception {
         final int port = AvailablePortFinder.getNextAvailable();
@@ -265,6 +768,170 @@ public class CloudEventsV02Test {
         mock.assertIsSatisfied();
     }
 
+    @Test
+    void testConsumeStructuredContentType() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("undertow:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        // the contenttype attribute of the 0.2 spec is the content type of the data
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedHeaderReceived("ce-id", "myEventID");
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "text/plain");
+        mock.expectedMessagesMatches(e -> !e.getIn().getHeaders().containsKey("ce-contenttype"));
+        mock.expectedBodiesReceived("test");
+        mock.expectedMessageCount(1);
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+                e.getIn().setBody(new ObjectMapper().writeValueAsString(KnativeSupport.mapOf(
+                    "specversion", CloudEventsProcessors.v02.getVersion(),
+                    "type", "org.apache.camel.event",
+                    "id", "myEventID",
+                    "source", "/somewhere",
+                    "contenttype", "text/plain",
+                    "data", "test"
+                )));
+            }
+        );
+
+        mock.assertIsSatisfied();
+    }
+
+    @Test
+    void testConsumeStructuredContentAsBytes() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final String data = "{\"message\": {\"text\": \"hello\", \"tags\": [1, 2, 3]}}";
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint?structuredDataMode=bytes")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("undertow:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedHeaderReceived("ce-specversion", CloudEventsProcessors.v02.getVersion());
+        mock.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+        mock.expectedHeaderReceived("ce-id", "myEventID");
+        mock.expectedHeaderReceived("ce-source", "/somewhere");
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "application/json");
+        mock.expectedMessageCount(1);
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+                e.getIn().setBody("{"
+                    + "\"specversion\": \"0.2\", "
+                    + "\"type\": \"org.apache.camel.event\", "
+                    + "\"id\": \"myEventID\", "
+                    + "\"source\": \"/somewhere\", "
+                    + "\"contenttype\": \"application/json\", "
+                    + "\"data\": " + data
+                    + "}");
+            }
+        );
+
+        mock.assertIsSatisfied();
+
+        // the data is the json received, byte for byte
+        assertThat(mock.getExchanges().get(0).getIn().getBody()).isInstanceOf(byte[].class);
+        assertThat(mock.getExchanges().get(0).getIn().getBody(String.class)).isEqualTo(data);
+
+        // the data can be read as a json tree too
+        Message message = new DefaultExchange(context).getIn();
+        message.setBody("{\"id\": \"myEventID\", \"data\": " + data + "}");
+
+        assertThat(StructuredDecoder.decode(message, Knative.DataMode.tree)).satisfies(event -> {
+            assertThat(event).containsEntry("id", "myEventID");
+            assertThat(event.get("data")).isInstanceOf(JsonNode.class);
+            assertThat(((JsonNode) event.get("data")).at("/message/tags/2").asInt()).isEqualTo(3);
+        });
+
+        // the data is sliced out of a buffer in place, whatever its offset
+        byte[] event = ("xxxx{\"id\": \"myEventID\", \"data\": " + data + "}").getBytes(StandardCharsets.UTF_8);
+        message.setBody(Buffer.buffer(Unpooled.wrappedBuffer(event).readerIndex(4)));
+
+        assertThat(StructuredDecoder.decode(message, Knative.DataMode.bytes)).satisfies(decoded -> {
+            assertThat(decoded).containsEntry("id", "myEventID");
+            assertThat(new String((byte[]) decoded.get("data"), StandardCharsets.UTF_8)).isEqualTo(data);
+        });
+
+        // a direct buffer is read as a stream, the data is then copied token by token
+        ByteBuf direct = Unpooled.directBuffer().writeBytes(event, 4, event.length - 4);
+        message.setBody(Buffer.buffer(direct));
+
+        Map<String, Object> decoded = StructuredDecoder.decode(message, Knative.DataMode.bytes);
+        assertThat(decoded).containsEntry("id", "myEventID");
+        assertThat(Knative.MAPPER.readTree((byte[]) decoded.get("data"))).isEqualTo(Knative.MAPPER.readTree(data));
+        assertThat(direct.readableBytes()).isEqualTo(event.length - 4);
+
+        // an empty body is not an event, whatever the mode
+        message.setBody(null);
+
+        for (Knative.DataMode mode : Knative.DataMode.values()) {
+            assertThatThrownBy(() -> StructuredDecoder.decode(message, mode))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("must not be empty");
+        }
+    }
+
     @Test
     void testConsumeContent() throws Exception {
         final int port = AvailablePortFinder.getNextAvailable();
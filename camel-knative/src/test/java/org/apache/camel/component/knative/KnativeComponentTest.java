@@ -160,6 +160,32 @@ public class KnativeComponentTest {
         assertThat(e2.getEndpoint()).hasFieldOrPropertyWithValue("endpointUri", "knative-http://my-node:9001/another/path");
     }
 
+    @Test
+    void testCreateEndpointWithAddresses() throws Exception {
+        KnativeEnvironment env = KnativeEnvironment.mandatoryLoadFromSerializedString(context, "{"
+            + "  \"services\": [{"
+            + "    \"type\": \"endpoint\","
+            + "    \"protocol\": \"http\","
+            + "    \"name\": \"myEndpoint\","
+            + "    \"host\": \"my-node\","
+            + "    \"port\": 9001,"
+            + "    \"addresses\": [ \"10.0.0.1:8080\", \"10.0.0.2:8080\" ]"
+            + "  }]"
+            + "}");
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setEnvironment(env);
+
+        context.start();
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint/a/path", KnativeEndpoint.class);
+
+        assertThat(endpoint.getService().getAddresses()).containsExactly("10.0.0.1:8080", "10.0.0.2:8080");
+        assertThat(endpoint.getEndpoint()).isInstanceOf(KnativeHttpEndpoint.class);
+        assertThat(endpoint.getEndpoint()).hasFieldOrPropertyWithValue("host", "my-node");
+        assertThat(endpoint.getEndpoint()).hasFieldOrPropertyWithValue("addresses", "10.0.0.1:8080,10.0.0.2:8080");
+    }
+
     @Test
     void testCreateEndpointWithComputedHost() throws Exception {
         KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.component.knative.Knative;
+import org.apache.camel.component.knative.KnativeComponent;
+import org.apache.camel.component.knative.KnativeEndpoint;
+import org.apache.camel.component.knative.KnativeEnvironment;
+import org.apache.camel.component.knative.KnativeSupport;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the producer processor of {@link CloudEventsProcessors} with the per
+ * exchange lookups and time formatting it replaces, each invocation stamps a new
+ * exchange so the {@code exchange} benchmark is the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CloudEventsProcessorsBenchmark {
+    private CamelContext context;
+    private KnativeEndpoint endpoint;
+    private Processor processor;
+    private Processor legacy;
+
+    @Setup
+    public void setup() throws Exception {
+        context = new DefaultCamelContext();
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(new KnativeEnvironment(Collections.singletonList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                8080,
+                KnativeSupport.mapOf(
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.custom-event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        )));
+
+        endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        processor = CloudEventsProcessors.v02.producerProcessor(endpoint);
+        legacy = legacy(endpoint);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    public Exchange exchange() {
+        return newExchange();
+    }
+
+    @Benchmark
+    public Exchange legacy() throws Exception {
+        Exchange exchange = newExchange();
+        legacy.process(exchange);
+
+        return exchange;
+    }
+
+    @Benchmark
+    public Exchange compiled() throws Exception {
+        Exchange exchange = newExchange();
+        processor.process(exchange);
+
+        return exchange;
+    }
+
+    @Benchmark
+    public String formatTime() {
+        return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now(ZoneId.systemDefault()));
+    }
+
+    @Benchmark
+    public String encodeTime() {
+        return TimestampEncoder.UTC.encode(System.currentTimeMillis());
+    }
+
+    private Exchange newExchange() {
+        // as done by the consumers and the producer template
+        Exchange exchange = new DefaultExchange(context);
+        exchange.setProperty(Exchange.CREATED_TIMESTAMP, new Date());
+        exchange.getIn().setBody("test");
+
+        return exchange;
+    }
+
+    /**
+     * The producer processor as it was before the static attributes were resolved once.
+     */
+    private static Processor legacy(KnativeEndpoint endpoint) {
+        KnativeEnvironment.KnativeServiceDefinition service = endpoint.getService();
+        String uri = endpoint.getEndpointUri();
+
+        return exchange -> {
+            String eventType = service.getMetadata().get(Knative.KNATIVE_EVENT_TYPE);
+            if (eventType == null) {
+                eventType = endpoint.getConfiguration().getCloudEventsType();
+            }
+            final String contentType = service.getMetadata().get(Knative.CONTENT_TYPE);
+            final ZonedDateTime created = exchange.getCreated().toInstant().atZone(ZoneId.systemDefault());
+            final String eventTime = DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(created);
+            final Map<String, Object> headers = exchange.getIn().getHeaders();
+
+            headers.putIfAbsent("ce-specversion", "0.2");
+            headers.putIfAbsent("ce-type", eventType);
+            headers.putIfAbsent("ce-id", exchange.getExchangeId());
+            headers.putIfAbsent("ce-time", eventTime);
+            headers.putIfAbsent("ce-source", uri);
+            headers.putIfAbsent(Exchange.CONTENT_TYPE, contentType);
+
+            headers.remove("Host");
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(CloudEventsProcessorsBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
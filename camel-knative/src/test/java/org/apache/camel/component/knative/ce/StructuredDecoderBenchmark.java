@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Message;
+import org.apache.camel.component.knative.Knative;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link StructuredDecoder} with the {@code readValue} of the whole event
+ * into a map it replaces, the {@code readValue} benchmark is the baseline and
+ * {@code items} is the number of json objects held by the data of the event.
+ *
+ * The {@code buffer} benchmark decodes the data as bytes out of a Vert.x
+ * {@link Buffer}, the body set by the knative-http consumers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructuredDecoderBenchmark {
+    @Param({"1", "100", "10000"})
+    public int items;
+
+    private CamelContext context;
+    private Message message;
+    private byte[] event;
+    private Buffer buffer;
+
+    @Setup
+    public void setup() throws Exception {
+        context = new DefaultCamelContext();
+        message = new DefaultExchange(context).getIn();
+
+        StringBuilder data = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                data.append(", ");
+            }
+            data.append("{\"id\": ").append(i).append(", \"text\": \"hello\", \"tags\": [1, 2, 3]}");
+        }
+        data.append("]");
+
+        event = ("{"
+            + "\"specversion\": \"0.2\", "
+            + "\"type\": \"org.apache.camel.event\", "
+            + "\"id\": \"myEventID\", "
+            + "\"source\": \"/somewhere\", "
+            + "\"contenttype\": \"application/json\", "
+            + "\"data\": " + data
+            + "}").getBytes(StandardCharsets.UTF_8);
+
+        buffer = Buffer.buffer(Unpooled.wrappedBuffer(event));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> readValue() throws Exception {
+        message.setBody(event);
+
+        // as done by the consumers before the streaming parser
+        try (InputStream is = message.getBody(InputStream.class)) {
+            return Knative.MAPPER.readValue(is, Map.class);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> object() throws Exception {
+        message.setBody(event);
+
+        return StructuredDecoder.decode(message, Knative.DataMode.object);
+    }
+
+    @Benchmark
+    public Map<String, Object> tree() throws Exception {
+        message.setBody(event);
+
+        return StructuredDecoder.decode(message, Knative.DataMode.tree);
+    }
+
+    @Benchmark
+    public Map<String, Object> bytes() throws Exception {
+        message.setBody(event);
+
+        return StructuredDecoder.decode(message, Knative.DataMode.bytes);
+    }
+
+    @Benchmark
+    public Map<String, Object> buffer() throws Exception {
+        message.setBody(buffer);
+
+        return StructuredDecoder.decode(message, Knative.DataMode.bytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(StructuredDecoderBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}